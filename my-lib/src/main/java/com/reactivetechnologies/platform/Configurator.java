@@ -92,6 +92,30 @@ public class Configurator {
   public static final String PIPED_INSTREAM_FILE = "PIPED_INSTREAM_FILE";
   public static final String PIPED_OUTSTREAM_FILE = "PIPED_OUTSTREAM_FILE";
   public static final String PIPED_TOPIC_FILE = "PIPED_TOPIC_FILE";
+  /**
+   * Wildcard topic name matching all stream session topics.
+   * @see #pipedTopic(String)
+   */
+  public static final String PIPED_TOPIC_SESSIONS = PIPED_TOPIC_FILE + ".*";
+  /**
+   * Gets the topic for a stream session. Each session has its own topic, so that concurrent streams
+   * do not interleave, and only the members subscribed to a session receive its bytes.
+   * @param sessionId session id, or null for the default shared topic
+   * @return
+   */
+  public static String pipedTopic(String sessionId)
+  {
+    return StringUtils.hasText(sessionId) ? PIPED_TOPIC_FILE + "." + sessionId : PIPED_TOPIC_FILE;
+  }
+  /**
+   * Whether the topic is a stream session topic, which should be destroyed once the session is over.
+   * @param topic
+   * @return
+   */
+  public static boolean isSessionTopic(String topic)
+  {
+    return topic.startsWith(PIPED_TOPIC_FILE + ".");
+  }
   public static final int DEFAULT_CHUNK_SIZE_BYTES = 8192;
   public static final String NODE_INSTANCE_ID = "keyval.hazelcast.id";
       
@@ -29,7 +29,11 @@ SOFTWARE.
 package com.reactivetechnologies.platform.datagrid;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +42,7 @@ import org.springframework.data.keyvalue.core.KeyValueAdapter;
 import org.springframework.data.util.CloseableIterator;
 import org.springframework.util.Assert;
 
+import com.hazelcast.core.ICompletableFuture;
 import com.reactivetechnologies.platform.datagrid.core.HazelcastClusterServiceBean;
 import com.reactivetechnologies.platform.datagrid.handlers.LocalMapEntryPutListener;
 import com.reactivetechnologies.platform.datagrid.handlers.MembershipEventObserver;
@@ -155,12 +160,113 @@ public class HazelcastKeyValueAdapterBean extends AbstractKeyValueAdapter {
     Assert.notNull(keyspace, "Cannot delete item for null collection.");
     return hz.removeNow(id, keyspace.toString());
   }
-  public void deleteAsync(Serializable id, Serializable keyspace) {
+  /**
+   * Asynchronous delete.
+   * @param id
+   * @param keyspace
+   * @return future with the deleted item
+   */
+  public ICompletableFuture<Object> deleteAsync(Serializable id, Serializable keyspace) {
     if(!hz.isStarted())
       throw new IllegalStateException("Hazelcast service not started!");
     Assert.notNull(id, "Cannot delete item with null id.");
     Assert.notNull(keyspace, "Cannot delete item for null collection.");
-    hz.remove(id, keyspace.toString());
+    return hz.removeAsync(id, keyspace.toString());
+  }
+  /**
+   * Asynchronous put. Can be used to pipeline writes, instead of waiting on each round trip.
+   * @param id
+   * @param item
+   * @param keyspace
+   * @return future with the previous item
+   */
+  public ICompletableFuture<Object> putAsync(Serializable id, Object item, Serializable keyspace) {
+    if(!hz.isStarted())
+      throw new IllegalStateException("Hazelcast service not started!");
+    Assert.notNull(id, "Cannot add item with null id.");
+    Assert.notNull(keyspace, "Cannot add item for null collection.");
+    return hz.putAsync(id, item, keyspace.toString());
+  }
+  /**
+   * Asynchronous set. Same as {@link #putAsync(Serializable, Object, Serializable)}, but
+   * does not fetch the previous item.
+   * @param id
+   * @param item
+   * @param keyspace
+   * @return
+   */
+  public ICompletableFuture<Object> setAsync(Serializable id, Object item, Serializable keyspace) {
+    if(!hz.isStarted())
+      throw new IllegalStateException("Hazelcast service not started!");
+    Assert.notNull(id, "Cannot add item with null id.");
+    Assert.notNull(keyspace, "Cannot add item for null collection.");
+    return hz.setAsync(id, item, keyspace.toString());
+  }
+  /**
+   * Asynchronous get.
+   * @param id
+   * @param keyspace
+   * @return
+   */
+  public ICompletableFuture<Object> getAsync(Serializable id, Serializable keyspace) {
+    if(!hz.isStarted())
+      throw new IllegalStateException("Hazelcast service not started!");
+    Assert.notNull(id, "Cannot get item with null id.");
+    Assert.notNull(keyspace, "Cannot get item for null collection.");
+    return hz.getAsync(id, keyspace.toString());
+  }
+  /**
+   * Batch put. The items are grouped by partition, and sent in a single operation per partition, instead
+   * of a round trip per item. Like {@link #set(Serializable, Object, Serializable) set}, previous items are not returned.
+   * @param items
+   * @param keyspace
+   */
+  public void putAll(Map<? extends Serializable, ?> items, Serializable keyspace) {
+    if(!hz.isStarted())
+      throw new IllegalStateException("Hazelcast service not started!");
+    Assert.notNull(items, "Cannot add null items.");
+    Assert.notNull(keyspace, "Cannot add items for null collection.");
+    for(Serializable id : items.keySet())
+      Assert.notNull(id, "Cannot add item with null id.");
+    hz.putAll(items, keyspace.toString());
+  }
+  /**
+   * Batch get. The ids are grouped by partition, and fetched in a single operation per partition.
+   * @param ids
+   * @param keyspace
+   * @return items for the ids present
+   */
+  public Map<Serializable, Object> getAll(Collection<? extends Serializable> ids, Serializable keyspace) {
+    if(!hz.isStarted())
+      throw new IllegalStateException("Hazelcast service not started!");
+    Assert.notNull(ids, "Cannot get items with null ids.");
+    Assert.notNull(keyspace, "Cannot get items for null collection.");
+    Set<Serializable> keys = new HashSet<>();
+    for(Serializable id : ids)
+    {
+      Assert.notNull(id, "Cannot get item with null id.");
+      keys.add(id);
+    }
+    return hz.getAll(keys, keyspace.toString());
+  }
+  /**
+   * Batch delete. The ids are grouped by partition, and deleted in a single operation per partition.
+   * @param ids
+   * @param keyspace
+   * @return deleted items for the ids present
+   */
+  public Map<Serializable, Object> deleteAll(Collection<? extends Serializable> ids, Serializable keyspace) {
+    if(!hz.isStarted())
+      throw new IllegalStateException("Hazelcast service not started!");
+    Assert.notNull(ids, "Cannot delete items with null ids.");
+    Assert.notNull(keyspace, "Cannot delete items for null collection.");
+    Set<Serializable> keys = new HashSet<>();
+    for(Serializable id : ids)
+    {
+      Assert.notNull(id, "Cannot delete item with null id.");
+      keys.add(id);
+    }
+    return hz.removeAll(keys, keyspace.toString());
   }
 
   /**
@@ -38,6 +38,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -51,10 +52,12 @@ import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.util.StringUtils;
 
 import com.hazelcast.config.ConfigurationException;
+import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.ISet;
 import com.hazelcast.core.ITopic;
 import com.hazelcast.core.MapStore;
+import com.hazelcast.core.Member;
 import com.hazelcast.core.MigrationEvent;
 import com.hazelcast.core.MigrationListener;
 import com.hazelcast.map.listener.MapListener;
@@ -156,7 +159,18 @@ public final class HazelcastClusterServiceBean {
     
   }
   /**
-   * Synchronized put operation across cluster.
+   * Puts the value if the key is not already mapped.
+   * @param key
+   * @param value
+   * @param map
+   * @return the existing value, or null if the value was put
+   */
+  public Object putIfAbsent(Object key, Object value, String map) {
+    IMap<Object, Object> imap = hzInstance.getMap(map);
+    return imap.putIfAbsent(key, value);
+  }
+  /**
+   * Synchronized put operation across cluster. The write is done holding a cluster wide lock on the key.
    * @param key
    * @param value
    * @param map
@@ -178,7 +192,7 @@ public final class HazelcastClusterServiceBean {
     
   }
   /**
-   * Synchronized set operation across cluster.
+   * Synchronized set operation across cluster. The write is done holding a cluster wide lock on the key.
    * @param key
    * @param value
    * @param map
@@ -200,6 +214,70 @@ public final class HazelcastClusterServiceBean {
   public Object get(Object key, String map) {
     return hzInstance.get(key, map);
     
+  }
+  /**
+   * Put all entries to an {@linkplain IMap}, in one operation per partition.
+   * @param entries
+   * @param map
+   */
+  public void putAll(Map<?, ?> entries, String map) {
+    hzInstance.putAll(entries, map);
+  }
+  /**
+   * Get the values corresponding to the keys from an {@linkplain IMap}, in one operation per partition.
+   * @param keys
+   * @param map
+   * @return the values for the keys present
+   */
+  public <K, V> Map<K, V> getAll(Set<K> keys, String map) {
+    return hzInstance.getAll(keys, map);
+  }
+  /**
+   * Remove the keys from an {@linkplain IMap}, in one operation per partition.
+   * @param keys
+   * @param map
+   * @return the removed values, for the keys that were present
+   */
+  public <K> Map<K, Object> removeAll(Set<K> keys, String map) {
+    return hzInstance.removeAll(keys, map);
+  }
+  /**
+   * Asynchronous put operation.
+   * @param key
+   * @param value
+   * @param map
+   * @return future with the previous value
+   */
+  public <V> ICompletableFuture<V> putAsync(Object key, V value, String map) {
+    return hzInstance.putAsync(key, value, map);
+  }
+  /**
+   * Asynchronous set operation. Does not fetch the previous value.
+   * @param key
+   * @param value
+   * @param map
+   * @return
+   */
+  public ICompletableFuture<Object> setAsync(Object key, Object value, String map) {
+    return hzInstance.setAsync(key, value, map);
+  }
+  /**
+   * Asynchronous get operation.
+   * @param key
+   * @param map
+   * @return
+   */
+  public <V> ICompletableFuture<V> getAsync(Object key, String map) {
+    return hzInstance.getAsync(key, map);
+  }
+  /**
+   * Asynchronous removal of a key from IMap, returning a future with the removed value.
+   * @param key
+   * @param map
+   * @return
+   */
+  public <V> ICompletableFuture<V> removeAsync(Object key, String map) {
+    return hzInstance.removeAsync(key, map);
   }
   				
 	private final AtomicBoolean migrationRunning = new AtomicBoolean();	
@@ -254,6 +332,43 @@ public final class HazelcastClusterServiceBean {
   {
 	  addLocalEntryListener(addUpdateListener.keyspace(), addUpdateListener);
   }
+	/**
+	 * Register a cluster wide entry listener on a given {@linkplain IMap}. It is notified of the updates on every member.
+	 * @param keyspace map name
+	 * @param listener
+	 * @return registration id
+	 */
+	public String addEntryListener(String keyspace, MapListener listener)
+	{
+	  return hzInstance.addEntryListener(keyspace, listener);
+	}
+	/**
+	 * Remove an entry listener registration.
+	 * @param keyspace map name
+	 * @param id registration id
+	 * @return
+	 */
+	public boolean removeEntryListener(String keyspace, String id)
+	{
+	  return hzInstance.removeEntryListener(keyspace, id);
+	}
+	/**
+	 * The member owning the partition of the key. Entries of the key will be put on this member.
+	 * @param key
+	 * @return owner, or null if not yet assigned
+	 */
+	public Member getPartitionOwner(Object key)
+	{
+	  return hzInstance.getPartitionOwner(key);
+	}
+	/**
+	 * Current cluster members, including this one.
+	 * @return
+	 */
+	public Set<Member> getClusterMembers()
+	{
+	  return hzInstance.getMembers();
+	}
 	private final InstanceListener instanceListener = new InstanceListener();
 	/**
 	 * Register lifecycle listeners.
@@ -464,6 +579,14 @@ public final class HazelcastClusterServiceBean {
   {
     hzInstance.removeTopicListener(topic, regID);
   }
+  /**
+   * Destroys a topic across the cluster. To be used for topics created per session, once the session is over.
+   * @param topic
+   */
+  public void destroyTopic(String topic)
+  {
+    hzInstance.destroyTopic(topic);
+  }
   /**
    * Publish a message to a {@linkplain ITopic}
    * @param message
@@ -581,6 +704,27 @@ public final class HazelcastClusterServiceBean {
     IMap<K, V> cached = hzInstance.getMap(instanceMapName());
     cached.set(key, value);
   }
+  /**
+   * Puts a value to a Map, which is specific to this instance, without waiting
+   * for the operation to complete.
+   * @param key
+   * @param value
+   * @return
+   */
+  public <K, V> Future<V> setInstanceValueAsync(K key, V value) {
+    IMap<K, V> cached = hzInstance.getMap(instanceMapName());
+    return cached.putAsync(key, value);
+  }
+  /**
+   * Removes a value from a Map, which is specific to this instance, without waiting
+   * for the operation to complete.
+   * @param key
+   * @return
+   */
+  public <K, V> Future<V> removeInstanceValueAsync(K key) {
+    IMap<K, V> cached = hzInstance.getMap(instanceMapName());
+    return cached.removeAsync(key);
+  }
   /**
    * Puts a cached value to a Map, which is specific to this instance
    * @param map
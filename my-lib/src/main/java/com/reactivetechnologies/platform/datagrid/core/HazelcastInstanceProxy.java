@@ -54,8 +54,10 @@ import com.hazelcast.config.MapStoreConfig.InitialLoadMode;
 import com.hazelcast.config.MaxSizeConfig;
 import com.hazelcast.config.MaxSizeConfig.MaxSizePolicy;
 import com.hazelcast.config.TopicConfig;
+import com.hazelcast.core.DistributedObject;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.core.ICondition;
 import com.hazelcast.core.ILock;
 import com.hazelcast.core.IMap;
@@ -265,6 +267,12 @@ class HazelcastInstanceProxy {
     setProperty("hazelcast.io.thread.count", "4"); //4+4+1
     setProperty("hazelcast.shutdownhook.enabled", "false");
     
+    //a single wildcard config for all stream session topics
+    TopicConfig sessions = new TopicConfig(Configurator.PIPED_TOPIC_SESSIONS);
+    sessions.setStatisticsEnabled(true);
+    sessions.setGlobalOrderingEnabled(true);
+    this.hzConfig.addTopicConfig(sessions);
+    
     try {
       addMapConfigs(EntityFinder.findMapEntityClasses(entityScanPath));
     } catch (Exception e) {
@@ -315,17 +323,38 @@ class HazelcastInstanceProxy {
 		String _id = hazelcast.getMap(map).addLocalEntryListener(el);
 		localEntryListeners.put(el.toString(), _id);
 	}
+	/**
+	 * Adds a cluster wide entry listener on a map.
+	 * @param map
+	 * @param el
+	 * @return registration id
+	 */
+	public String addEntryListener(String map, MapListener el)
+	{
+		return hazelcast.getMap(map).addEntryListener(el, true);
+	}
+	/**
+	 * Removes an entry listener by its registration id.
+	 * @param map
+	 * @param id
+	 * @return
+	 */
+	public boolean removeEntryListener(String map, String id)
+	{
+		return hazelcast.getMap(map).removeEntryListener(id);
+	}
 	/**
 	 * Register a topic listener on the message channel topic. Note: The ordering is set the first time topic 
 	 * is registered configuration is registered. Subsequent invocation of this method would simply keep on adding 
-	 * listeners only, without modifying its configuration.
+	 * listeners only, without modifying its configuration. A topic matching a wildcard configuration uses that
+	 * configuration instead.
 	 * @param channel
 	 * @param orderingEnabled
 	 * @return registration id
 	 */
 	public <E> String addMessageChannelHandler(MessageChannel<E> channel, boolean orderingEnabled)
 	{
-	  if(!hazelcast.getConfig().getTopicConfigs().containsKey(channel.topic()))
+	  if(!isTopicConfigured(channel.topic()))
 	  {
 	    TopicConfig tc = new TopicConfig(channel.topic());
 	    tc.setStatisticsEnabled(true);
@@ -341,6 +370,19 @@ class HazelcastInstanceProxy {
 	  }
 	  return id;
 	}
+	/**
+	 * If there is a topic config, by name or by wildcard.
+	 * @param topic
+	 * @return
+	 */
+	private boolean isTopicConfigured(String topic)
+	{
+	  Config config = hazelcast.getConfig();
+	  if(config.getTopicConfigs().containsKey(topic))
+	    return true;
+	  //returns the 'default' config if no name or wildcard matched
+	  return !"default".equals(config.findTopicConfig(topic).getName());
+	}
 	/**
 	 * Removes topic listener with given registration id.
 	 * @param topic
@@ -349,14 +391,34 @@ class HazelcastInstanceProxy {
 	 */
 	public <E> boolean removeTopicListener(String topic, String regID)
   {
-    if(hazelcast.getConfig().getTopicConfigs().containsKey(topic))
+    if(isTopicConfigured(topic))
     {
+      //a destroyed session topic would be created again by getTopic
+      if(Configurator.isSessionTopic(topic) && !isTopicCreated(topic))
+        return false;
       ITopic<E> t = hazelcast.getTopic(topic);
       return t.removeMessageListener(regID);
     }
     return false;
     
   }
+	private boolean isTopicCreated(String topic)
+	{
+	  for(DistributedObject o : hazelcast.getDistributedObjects())
+	  {
+	    if(o instanceof ITopic && topic.equals(o.getName()))
+	      return true;
+	  }
+	  return false;
+	}
+	/**
+	 * Destroys a topic across the cluster, along with its listeners.
+	 * @param topic
+	 */
+	public void destroyTopic(String topic)
+	{
+	  hazelcast.getTopic(topic).destroy();
+	}
 	
 	private final Map<String, String> localEntryListeners = new HashMap<String, String>();
 	/**
@@ -417,29 +479,37 @@ class HazelcastInstanceProxy {
     return null;
 		
 	}
+	/**
+	 * Put holding a lock on the key. The lock is taken on the key entry, and not on the whole map, so that
+	 * concurrent writers to different keys do not serialize across the cluster.
+	 * @param key
+	 * @param value
+	 * @param map
+	 * @return
+	 */
 	public Object synchronizePut(Object key, Object value, String map) {
 	  if(isRunning()){
-      ILock lock = hazelcast.getLock(map);
-      
+	    IMap<Object, Object> imap = hazelcast.getMap(map);
+	    boolean locked = false;
       try
       {
-        if(lock.tryLock(10, TimeUnit.SECONDS))
-        {
-          return hazelcast.getMap(map).put(key, value);
-        }
-        else
+        locked = imap.tryLock(key, 10, TimeUnit.SECONDS);
+        if(!locked)
         {
+          //the put would still wait for the key to be unlocked by the current owner
           log.warn("[synchronizePut] Operation did not synchroznize in 10 secs");
-          return hazelcast.getMap(map).put(key, value);
-          
         }
+        return imap.put(key, value);
+        
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
         log.debug("", e);
       }
       finally
       {
-        lock.unlock();
+        if (locked) {
+          imap.unlock(key);
+        }
       }
       
     }
@@ -452,28 +522,36 @@ class HazelcastInstanceProxy {
     }
     
   }
+	/**
+	 * Set holding a lock on the key. The lock is taken on the key entry, and not on the whole map, so that
+   * concurrent writers to different keys do not serialize across the cluster.
+	 * @param key
+	 * @param value
+	 * @param map
+	 */
 	public void synchronizeSet(Object key, Object value, String map) {
     if(isRunning()){
-      ILock lock = hazelcast.getLock(map);
-      
+      IMap<Object, Object> imap = hazelcast.getMap(map);
+      boolean locked = false;
       try
       {
-        if(lock.tryLock(10, TimeUnit.SECONDS))
+        locked = imap.tryLock(key, 10, TimeUnit.SECONDS);
+        if(!locked)
         {
-          hazelcast.getMap(map).set(key, value);
-        }
-        else
-        {
-          hazelcast.getMap(map).set(key, value);
+          //the set would still wait for the key to be unlocked by the current owner
           log.warn("[synchronizeSet] Operation did not synchroznize in 10 secs");
         }
+        imap.set(key, value);
+        
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
         log.debug("", e);
       }
       finally
       {
-        lock.unlock();
+        if (locked) {
+          imap.unlock(key);
+        }
       }
       
     }
@@ -487,6 +565,99 @@ class HazelcastInstanceProxy {
 		return null;
 		
 	}
+	/**
+	 * Batch put. Hazelcast groups the entries by partition and invokes a single operation per partition.
+	 * @param entries
+	 * @param map
+	 */
+	public void putAll(Map<?, ?> entries, String map) {
+	  if(isRunning()){
+	    hazelcast.getMap(map).putAll(entries);
+	  }
+	}
+	/**
+	 * Batch get. Hazelcast groups the keys by partition and invokes a single operation per partition.
+	 * @param keys
+	 * @param map
+	 * @return
+	 */
+	public <K, V> Map<K, V> getAll(Set<K> keys, String map) {
+	  if(isRunning()){
+	    IMap<K, V> imap = hazelcast.getMap(map);
+	    return imap.getAll(keys);
+	  }
+	  return null;
+	}
+	/**
+	 * Batch remove. The keys are removed by an entry processor, which is executed once per partition.
+	 * @param keys
+	 * @param map
+	 * @return the removed values, for the keys that were present
+	 */
+	public <K> Map<K, Object> removeAll(Set<K> keys, String map) {
+	  if(isRunning()){
+	    IMap<K, Object> imap = hazelcast.getMap(map);
+	    return imap.executeOnKeys(keys, new RemoveEntryProcessor());
+	  }
+	  return null;
+	}
+	/**
+	 * Asynchronous put.
+	 * @param key
+	 * @param value
+	 * @param map
+	 * @return future with the previous value
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> ICompletableFuture<V> putAsync(Object key, V value, String map) {
+	  if(isRunning()){
+	    IMap<Object, V> imap = hazelcast.getMap(map);
+	    return (ICompletableFuture<V>) imap.putAsync(key, value);
+	  }
+	  throw new IllegalStateException("Hazelcast not running");
+	}
+	/**
+	 * Asynchronous set. Does not fetch the previous value.
+	 * @param key
+	 * @param value
+	 * @param map
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public ICompletableFuture<Object> setAsync(Object key, Object value, String map) {
+	  if(isRunning()){
+	    return (ICompletableFuture<Object>) hazelcast.getMap(map).submitToKey(key, new SetEntryProcessor(value));
+	  }
+	  throw new IllegalStateException("Hazelcast not running");
+	}
+	/**
+	 * Asynchronous get.
+	 * @param key
+	 * @param map
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> ICompletableFuture<V> getAsync(Object key, String map) {
+	  if(isRunning()){
+	    IMap<Object, V> imap = hazelcast.getMap(map);
+	    return (ICompletableFuture<V>) imap.getAsync(key);
+	  }
+	  throw new IllegalStateException("Hazelcast not running");
+	}
+	/**
+	 * Asynchronous remove.
+	 * @param key
+	 * @param map
+	 * @return future with the removed value
+	 */
+	@SuppressWarnings("unchecked")
+	public <V> ICompletableFuture<V> removeAsync(Object key, String map) {
+	  if(isRunning()){
+	    IMap<Object, V> imap = hazelcast.getMap(map);
+	    return (ICompletableFuture<V>) imap.removeAsync(key);
+	  }
+	  throw new IllegalStateException("Hazelcast not running");
+	}
 	Set<Entry<Object, Object>> getAll(String map)
 	{
 		if(isRunning())
@@ -505,6 +676,23 @@ class HazelcastInstanceProxy {
 	{
 		return hazelcast.getPartitionService().getPartition(key).getPartitionId();
 	}
+	/**
+	 * The member owning the partition of the key.
+	 * @param key
+	 * @return owner, or null if not yet assigned
+	 */
+	public Member getPartitionOwner(Object key)
+	{
+		return hazelcast.getPartitionService().getPartition(key).getOwner();
+	}
+	/**
+	 * Current cluster members.
+	 * @return
+	 */
+	public Set<Member> getMembers()
+	{
+		return hazelcast.getCluster().getMembers();
+	}
 	Set<Object> getLocalKeys(String map)
 	{
 		if(isRunning())
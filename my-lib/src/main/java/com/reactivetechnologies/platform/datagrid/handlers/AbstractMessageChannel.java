@@ -55,10 +55,26 @@ public abstract class AbstractMessageChannel<E> implements MessageChannel<E>, Cl
    * @param hazelcastService
    */
   public AbstractMessageChannel(HazelcastClusterServiceBean hazelcastService, boolean orderedSubcribe) {
+    this(hazelcastService, orderedSubcribe, null);
+  }
+  private final String topic;
+  /**
+   * Channel on the given topic. Subclasses using this constructor need not override {@link #topic()}.
+   * @param hazelcastService
+   * @param orderedSubcribe
+   * @param topic
+   */
+  protected AbstractMessageChannel(HazelcastClusterServiceBean hazelcastService, boolean orderedSubcribe, String topic) {
     Assert.notNull(hazelcastService);
     this.hazelcastService = hazelcastService;
+    this.topic = topic;
     this.hazelcastService.addMessageChannel(this, orderedSubcribe);
   }
+  
+  @Override
+  public String topic() {
+    return topic;
+  }
     
   @Override
   public void sendMessage(E message) {
@@ -29,10 +29,13 @@ SOFTWARE.
 package com.reactivetechnologies.platform.files;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
 
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.DataSerializable;
+import com.reactivetechnologies.platform.utils.PayloadCodec;
 /**
  * A wrapper class for a chunk of file bytes.
  */
@@ -83,7 +86,7 @@ public class FileChunk implements DataSerializable {
     return "FileChunk [fileName=" + fileName + ", fileSize=" + fileSize
         + ", creationTime=" + creationTime + ", lastAccessTime="
         + lastAccessTime + ", lastModifiedTime=" + lastModifiedTime + ", size="
-        + size + ", offset=" + offset + ", chunkLength=" + chunk.length
+        + size + ", offset=" + offset + ", position=" + position + ", chunkLength=" + getLength()
         + "]";
   }
 
@@ -98,7 +101,21 @@ public class FileChunk implements DataSerializable {
    * Index of chunk (0 based)
    */
   private int offset;
+  /**
+   * Byte position of chunk in file
+   */
+  private long position;
+  /**
+   * Checksum of chunk bytes
+   */
+  private long checksum;
+  /**
+   * Digest of the whole file
+   */
+  private String fileDigest;
   private byte[] chunk;
+  private ByteBuffer chunkBuffer;
+  private PayloadCodec codec = PayloadCodec.NONE;
   
   /**
    * No of chunks.
@@ -121,12 +138,172 @@ public class FileChunk implements DataSerializable {
     this.offset = offset;
   }
 
+  /**
+   * Byte position of this chunk in the file. Chunks can be written at their position, irrespective
+   * of the order in which they are received.
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  public void setPosition(long position) {
+    this.position = position;
+  }
+
+  /**
+   * CRC32 checksum of the chunk bytes.
+   * @see #computeChecksum()
+   */
+  public long getChecksum() {
+    return checksum;
+  }
+
+  public void setChecksum(long checksum) {
+    this.checksum = checksum;
+  }
+  /**
+   * Digest of the whole file this chunk belongs to. Identifies the version of the file being shared.
+   */
+  public String getFileDigest() {
+    return fileDigest;
+  }
+
+  public void setFileDigest(String fileDigest) {
+    this.fileDigest = fileDigest;
+  }
+  /**
+   * Codec to encode the chunk bytes with, on serialization. The receiving side decodes as
+   * per the codec header, irrespective of this setting.
+   */
+  public PayloadCodec getCodec() {
+    return codec;
+  }
+
+  public void setCodec(PayloadCodec codec) {
+    this.codec = codec;
+  }
+  /**
+   * Compute the CRC32 checksum of the chunk bytes.
+   * @return
+   */
+  public long computeChecksum() {
+    CRC32 crc = new CRC32();
+    if (chunk != null) {
+      crc.update(chunk);
+    }
+    else
+    {
+      ByteBuffer src = chunkBuffer.duplicate();
+      byte[] b = SCRATCH.get();
+      while (src.hasRemaining()) {
+        int n = Math.min(b.length, src.remaining());
+        src.get(b, 0, n);
+        crc.update(b, 0, n);
+      }
+    }
+    return crc.getValue();
+  }
+  /**
+   * If the chunk bytes match the {@linkplain #getChecksum() checksum}.
+   * @return
+   */
+  public boolean isChecksumValid() {
+    return computeChecksum() == checksum;
+  }
+
+  /**
+   * The chunk bytes. If the chunk is a {@linkplain #setChunk(ByteBuffer) view} over a buffer, the bytes
+   * are copied on first access.
+   * @return
+   */
   public byte[] getChunk() {
+    if(chunk == null && chunkBuffer != null)
+    {
+      chunk = new byte[chunkBuffer.remaining()];
+      chunkBuffer.duplicate().get(chunk);
+    }
     return chunk;
   }
 
   public void setChunk(byte[] chunk) {
     this.chunk = chunk;
+    this.chunkBuffer = null;
+  }
+  /**
+   * Set the chunk bytes as a view over the remaining bytes of a buffer, say a mapped region of the file.
+   * The bytes are not copied till the chunk is serialized, so the buffer should remain valid till then.
+   * @param chunk
+   */
+  public void setChunk(ByteBuffer chunk) {
+    this.chunkBuffer = chunk;
+    this.chunk = null;
+  }
+  /**
+   * No of bytes in this chunk.
+   * @return
+   */
+  public int getLength() {
+    return chunk != null ? chunk.length : chunkBuffer != null ? chunkBuffer.remaining() : 0;
+  }
+  
+  private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>(){
+    @Override
+    protected byte[] initialValue() {
+      return new byte[8192];
+    }
+  };
+  /**
+   * Thread local scratch of at least the given length.
+   * @param length
+   * @return
+   */
+  private static byte[] scratch(int length)
+  {
+    byte[] b = SCRATCH.get();
+    if(b.length < length)
+    {
+      b = new byte[length];
+      SCRATCH.set(b);
+    }
+    return b;
+  }
+  /**
+   * Write the chunk bytes, encoded with the {@linkplain #getCodec() codec}.
+   * @param out
+   * @throws IOException
+   */
+  private void writeChunk(ObjectDataOutput out) throws IOException
+  {
+    if(chunk != null)
+    {
+      codec.write(out, chunk);
+    }
+    else if(chunkBuffer != null)
+    {
+      ByteBuffer src = chunkBuffer.duplicate();
+      if(codec != PayloadCodec.NONE)
+      {
+        int len = src.remaining();
+        byte[] b = scratch(len);
+        src.get(b, 0, len);
+        codec.write(out, b, 0, len);
+        return;
+      }
+      PayloadCodec.writeHeader(out, src.remaining());
+      byte[] b = SCRATCH.get();
+      while (src.hasRemaining()) {
+        int n = Math.min(b.length, src.remaining());
+        src.get(b, 0, n);
+        out.write(b, 0, n);
+      }
+    }
+    else
+      PayloadCodec.writeHeader(out, 0);
+  }
+  private void readChunk(ObjectDataInput in) throws IOException
+  {
+    byte[] b = PayloadCodec.read(in);
+    setChunk(b != null ? b : new byte[0]);
   }
 
   /**
@@ -164,6 +341,8 @@ public class FileChunk implements DataSerializable {
     this.creationTime = another.getCreationTime();
     this.lastAccessTime = another.getLastAccessTime();
     this.lastModifiedTime = another.getLastModifiedTime();
+    this.fileDigest = another.getFileDigest();
+    this.codec = another.getCodec();
   }
 
   @Override
@@ -175,7 +354,10 @@ public class FileChunk implements DataSerializable {
     out.writeLong(getLastModifiedTime());
     out.writeInt(getSize());
     out.writeInt(getOffset());
-    out.writeByteArray(getChunk());
+    out.writeLong(getPosition());
+    out.writeLong(getChecksum());
+    out.writeUTF(getFileDigest());
+    writeChunk(out);
 
   }
 
@@ -188,7 +370,10 @@ public class FileChunk implements DataSerializable {
     setLastModifiedTime(in.readLong());
     setSize(in.readInt());
     setOffset(in.readInt());
-    setChunk(in.readByteArray());
+    setPosition(in.readLong());
+    setChecksum(in.readLong());
+    setFileDigest(in.readUTF());
+    readChunk(in);
 
   }
 
@@ -30,12 +30,29 @@ package com.reactivetechnologies.platform.files;
 
 import java.util.HashSet;
 import java.util.Set;
+/**
+ * Response of a file share process. A new response is created for each {@linkplain FileSharingAgent#distribute(java.io.File) distribution},
+ * so that concurrent shares do not overwrite each other's outcome.
+ */
+public class FileShareResponse {
 
-public enum FileShareResponse {
-
-  FINISH,TIMEOUT,ERROR,UNKNOWN;
+  public static enum Status{FINISH,TIMEOUT,ERROR,UNKNOWN}
+  
+  private final Status status;
   private int errorCount;
   private Set<String> errorNodes = new HashSet<>();
+  /**
+   * 
+   * @param status
+   */
+  public FileShareResponse(Status status) {
+    this.status = status;
+  }
+  
+  public Status getStatus() {
+    return status;
+  }
+
   public int getErrorCount() {
     return errorCount;
   }
@@ -51,4 +68,9 @@ public enum FileShareResponse {
   public void setErrorNodes(Set<String> errorNodes) {
     this.errorNodes = errorNodes;
   }
+
+  @Override
+  public String toString() {
+    return status.name();
+  }
 }
@@ -41,8 +41,8 @@ import com.reactivetechnologies.platform.files.dist.AbstractFileSharingAgent;
 public interface FileSharingAgent {
 
   /**
-   * Shares a file across the cluster. File sharing is an exclusive process.
-   * So at a time only 1 sharing can be processed.
+   * Shares a file across the cluster. Sharing of a given file is an exclusive process,
+   * however different files can be shared concurrently.
    * @param f
    * @return a Future for the file share response.
    * @throws IOException
@@ -74,6 +74,9 @@ public abstract class AbstractFileChunkHandler implements FileChunkHandler {
     
     if(chunk.getOffset() >= chunk.getSize())
       throw new IOException("Got chunk offset ["+chunk.getOffset()+"] greater than expected size ["+chunk.getSize()+"]");
+    
+    if(chunk.getPosition() < 0 || chunk.getPosition() + chunk.getLength() > chunk.getFileSize())
+      throw new IOException("Got chunk bytes ["+chunk.getPosition()+"-"+(chunk.getPosition() + chunk.getLength())+"] beyond expected file size ["+chunk.getFileSize()+"]");
   }
   /**
    * Copy or delete any existing files before file consuming starts.
@@ -95,7 +98,10 @@ public abstract class AbstractFileChunkHandler implements FileChunkHandler {
   {
     file = new File(dir, chunk.getFileName());
     
-    moveExistingFile();
+    if(resume && file.exists())
+      log.info("Resuming write to partially received file ["+file+"]");
+    else
+      moveExistingFile();
     
     fileName = chunk.getFileName();
     BasicFileAttributeView attrView = Files
@@ -125,6 +131,21 @@ public abstract class AbstractFileChunkHandler implements FileChunkHandler {
       
     }
   }
+  /**
+   * Nothing to release by default, as chunks hold their own bytes.
+   */
+  @Override
+  public void release(FileChunk chunk) {
+    
+  }
+  private boolean resume;
+  /**
+   * Write to an existing partially received file, rather than replacing it.
+   * @param resume
+   */
+  void setResume(boolean resume) {
+    this.resume = resume;
+  }
   protected File dir;
   protected File file;
   protected String fileName;
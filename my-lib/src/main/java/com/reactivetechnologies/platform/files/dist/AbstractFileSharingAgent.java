@@ -28,21 +28,38 @@ SOFTWARE.
 */
 package com.reactivetechnologies.platform.files.dist;
 
+import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.SecureRandom;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -66,18 +83,29 @@ import com.reactivetechnologies.platform.files.FileChunk;
 import com.reactivetechnologies.platform.files.FileShareResponse;
 import com.reactivetechnologies.platform.files.FileSharingAgent;
 import com.reactivetechnologies.platform.files.io.FileChunkHandler;
+import com.reactivetechnologies.platform.utils.Digestor;
+import com.reactivetechnologies.platform.utils.PayloadCodec;
 /**
  * An agent that can manage sharing of {@linkplain FileChunk}. Implementation of agents can extend this class 
  * and simply provide a {@linkplain FileChunkHandler read handler} and a {@linkplain FileChunkHandler write handler}.
  * This class is responsible for initiating a file share process and manage it further. It would perform any necessary bound,
  * and sequence checks of the byte stream. Some file level check would be delegated to the {@linkplain AbstractFileChunkHandler chunk handler}.
+ * <p>
+ * Each share runs as a separate session, with its chunks published on a session topic. The sender keeps a window of
+ * unacknowledged chunks in flight, and receivers write chunks at their position as they arrive, requesting
+ * resend of only the missing ones. Shares of different files can thus proceed concurrently.
+ * <p>
+ * Chunks carry a checksum and the digest of the whole file. A receiver failing midway keeps the partial file
+ * along with its progress, and a later share of the same file digest resumes from the chunks verified.
  */
-public abstract class AbstractFileSharingAgent implements MessageChannel<Byte>, FileSharingAgent, Closeable{
+public abstract class AbstractFileSharingAgent implements MessageChannel<FileShareCommand>, FileSharingAgent, Closeable{
 
   static final byte SEND_FILE       = 0b00000001;
   static final byte SEND_FILE_ACK   = 0b00000011;
   static final byte RECV_FILE_ERR       = 0b00000110;
   static final byte RECV_FILE_ACK   = 0b00000111;
+  static final byte CHUNK_ACK       = 0b00001000;
+  static final byte CHUNK_RESEND    = 0b00001001;
   
   @Autowired
   protected HazelcastClusterServiceBean hzService;
@@ -92,14 +120,11 @@ public abstract class AbstractFileSharingAgent implements MessageChannel<Byte>,
   }
   private static final Logger log = LoggerFactory.getLogger(AbstractFileSharingAgent.class);
   
-  protected FileChunkReceiver receiver;
-  protected FileChunkSender sender;
   protected String topicRegId;
+  private final ConcurrentMap<String, FileSendingTask> sendingTasks = new ConcurrentHashMap<>();
   private void registerSelf()
   {
     topicRegId = hzService.addMessageChannel(this);
-    receiver = new FileChunkReceiver(hzService);
-    sender = new FileChunkSender(hzService);
   }
   @PreDestroy
   protected void onunload()
@@ -115,15 +140,14 @@ public abstract class AbstractFileSharingAgent implements MessageChannel<Byte>,
   @Override
   public void close() {
     hzService.removeMessageChannel(topic(), topicRegId);
-    sender.close();
-    receiver.close();
   }
   private void startHandlers()
   {
-    threads = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    threads = Executors.newCachedThreadPool(new ThreadFactory() {
+      private final AtomicInteger n = new AtomicInteger();
       @Override
       public Thread newThread(Runnable r) {
-        Thread t = new Thread(r, "FileSharingAgent.Worker");
+        Thread t = new Thread(r, "FileSharingAgent.Worker-"+n.incrementAndGet());
         return t;
       }
     });
@@ -144,20 +168,48 @@ public abstract class AbstractFileSharingAgent implements MessageChannel<Byte>,
   private long lockAwaitSecs;
   @Value("${files.send.receiptAck.secs:600}")
   private long receiptAwaitSecs;
+  @Value("${files.send.window.chunks:32}")
+  private int windowChunks;
   @Value("${files.receive.chunkWait.secs:10}")
   private long chunkAwaitSecs;
+  @Value("${files.receive.chunkRetry.count:3}")
+  private int chunkRetries;
+  @Value("${files.receive.checkpoint.chunks:1024}")
+  private int checkpointChunks;
+  @Value("${files.send.codec:NONE}")
+  private PayloadCodec chunkCodec;
   /**
    * 
    */
-  private SecureRandom rand = new SecureRandom();
   private SimpleDateFormat df = new SimpleDateFormat("yyyyMMdd");
+  /**
+   * Directory under {@link #fileWriteDir} where files are written while being received.
+   */
+  private static final String PARTIAL_DIR = ".partial";
+  /**
+   * The directory name for a file being received. Keyed by the file digest, so that an
+   * interrupted receipt is found again by a later transfer of the same file; or by the
+   * session if there is no digest, in which case it cannot be resumed.
+   * @param fileDigest
+   * @param sessionId
+   * @return
+   */
+  static String partialKey(String fileDigest, String sessionId)
+  {
+    if(fileDigest == null)
+      return "s-" + sessionId;
+    //Base64 to a file name safe form
+    return "d-" + fileDigest.replace('/', '_').replace('+', '-').replace("=", "");
+  }
   /**
    * Callback on successful receipt of a new file
    * @param file
    */
   protected abstract void onFileReceiptSuccess(File file);
   /**
-   * Callback on file receipt failure. The intermittent file created (if any) will be deleted.
+   * Callback on file receipt failure. The intermittent file created (if any) is kept along with
+   * its receipt progress, so that a later transfer of the same file can resume. It is deleted
+   * only if no progress could be saved.
    * @param cause
    */
   protected abstract void onFileReceiptFailure(ExecutionException cause);
@@ -167,94 +219,284 @@ public abstract class AbstractFileSharingAgent implements MessageChannel<Byte>,
    */
   private class FileConsumingTask implements Runnable
   {
-    private int offset = -1;
-    private AtomicInteger retryCount = new AtomicInteger();
-    @SuppressWarnings("unused")
+    private final AtomicInteger retryCount = new AtomicInteger();
     boolean retry()
     {
-      return retryCount.getAndIncrement() < 3;
+      return retryCount.getAndIncrement() < chunkRetries;
     }
-    private final long id;
-    public FileConsumingTask() {
+    private final String sessionId, fileDigest, dirPath;
+    private final File target;
+    private final FileChunkReceiver receiver;
+    public FileConsumingTask(FileShareCommand request) {
       super();
-      this.id = rand.nextLong();
+      this.sessionId = request.getSessionId();
+      this.fileDigest = request.getFileDigest();
+      dirPath = fileWriteDir + File.separator + PARTIAL_DIR + File.separator + partialKey(fileDigest, sessionId);
+      target = Paths.get(dirPath).resolve(request.getFileName()).toFile();
+      receiver = new FileChunkReceiver(hzService, sessionId, windowChunks * 2);
     }
     
-    private long bytesRead = 0;
+    private FileReceiptProgress progress;
+    private int highest = -1, acked = 0, checkpointed = 0;
     
     private void checkBounds(final FileChunk chunk) throws IOException
     {
-      if(bytesRead + chunk.getChunk().length > chunk.getFileSize())
-        throw new IOException("Received more bytes ["+bytesRead + chunk.getChunk().length+"] than expected ["+chunk.getFileSize()+"]");
+      if(progress == null)
+        progress = new FileReceiptProgress(chunk.getFileDigest(), chunk.getSize(), chunk.getFileSize());
+      else if(progress.getChunks() != chunk.getSize())
+        throw new IOException("Expected no of chunks ["+progress.getChunks()+"], got "+chunk.getSize());
+      
+      if(!target.getName().equals(chunk.getFileName()))
+        throw new IOException("Got chunk file name ["+chunk.getFileName()+"] rather than expected ["+target.getName()+"]");
       
-      if(chunk.getOffset() - offset != 1)
-        throw new IOException("Chunks not in order. Expected offset "+(++offset)+", got "+chunk.getOffset());
+      if(fileDigest != null && !fileDigest.equals(chunk.getFileDigest()))
+        throw new IOException("Got chunk file digest ["+chunk.getFileDigest()+"] rather than expected ["+fileDigest+"]");
       
-      if(chunk.getSize() <= chunk.getOffset())
+      if(chunk.getOffset() < 0 || chunk.getSize() <= chunk.getOffset())
         throw new IOException(new ArrayIndexOutOfBoundsException("Size: "+chunk.getSize()+" Offset: "+chunk.getOffset()));
+      
+      if(chunk.getPosition() + chunk.getLength() > chunk.getFileSize())
+        throw new IOException("Received bytes upto ["+(chunk.getPosition() + chunk.getLength())+"] more than expected ["+chunk.getFileSize()+"]");
     }
-    @Override
-    public void run() 
+    private boolean isComplete()
+    {
+      return progress != null && progress.isComplete();
+    }
+    /**
+     * Request resend of missing chunks in the given range.
+     * @param from
+     * @param to
+     */
+    private void requestResend(int from, int to)
+    {
+      List<Integer> missing = new ArrayList<>();
+      if (progress != null) {
+        for (int i = progress.nextMissing(from); i < to; i = progress.nextMissing(i + 1)) {
+          missing.add(i);
+        }
+      }
+      int[] offsets = new int[missing.size()];
+      for (int i = 0; i < offsets.length; i++) {
+        offsets[i] = missing.get(i);
+      }
+      FileShareCommand cmd = new FileShareCommand(CHUNK_RESEND, sessionId, from);
+      cmd.setOffsets(offsets);
+      sendMessage(cmd);
+      log.debug("Requested resend of chunks from "+from+" => "+missing);
+    }
+    /**
+     * On timeout, request resend of whatever is missing. An empty list of offsets would
+     * request resend of all chunks from the first missing one.
+     * @return false if retries exhausted
+     */
+    private boolean onChunkTimeout()
     {
-      FileChunk chunk = null;
+      if(!retry())
+        return false;
       
-      boolean isLastChunk = false;
-      boolean fileReceived = false;
-      String dirPath = fileWriteDir + File.separator + df.format(new Date());
-      ExecutionException cause = null;
+      int from = progress == null ? 0 : progress.contiguous();
+      requestResend(from, highest + 1);
+      return true;
+    }
+    /**
+     * Acknowledge contiguous chunks received, every half window. Progress is
+     * persisted every {@link #checkpointChunks}.
+     * @param writer
+     * @throws IOException 
+     */
+    private void acknowledge(FileChunkHandler writer) throws IOException
+    {
+      int upto = progress.contiguous();
+      if(upto - acked >= Math.max(1, windowChunks / 2))
+      {
+        acked = upto;
+        sendMessage(new FileShareCommand(CHUNK_ACK, sessionId, upto));
+      }
+      if(upto - checkpointed >= checkpointChunks)
+      {
+        checkpointed = upto;
+        writer.flush();
+        progress.save(target);
+      }
+    }
+    /**
+     * Resume from a previous partial receipt of the same file, if any.
+     * @param writer
+     * @return the no of chunks already verified
+     */
+    private int resume(FileChunkHandler writer)
+    {
+      if(!(writer instanceof AbstractFileChunkHandler))
+        return 0;
+      
+      FileReceiptProgress saved = FileReceiptProgress.load(target, fileDigest);
+      if(saved == null)
+        return 0;
+      
+      int verified = saved.verify(target);
+      if(saved.isEmpty())
+        return 0;
       
-      receiver.unmarkDiscard();
+      ((AbstractFileChunkHandler) writer).setResume(true);
+      progress = saved;
+      highest = saved.highest();
+      acked = checkpointed = verified;
+      log.info("Resuming receipt of file ["+target+"] from chunk "+verified);
+      return verified;
+    }
+    
+    private void receive() throws IOException, InterruptedException
+    {
       try (FileChunkHandler writer = newWriteHandler(dirPath)) {
-          
-        while (!isLastChunk) 
+        
+        sendMessage(new FileShareCommand(SEND_FILE_ACK, sessionId, resume(writer)));
+        while (!isComplete()) 
         {
-          chunk = receiver.get(chunkAwaitSecs, TimeUnit.SECONDS);
+          FileChunk chunk = receiver.get(chunkAwaitSecs, TimeUnit.SECONDS);
           if(chunk == null)
+          {
+            if(onChunkTimeout())
+              continue;
             throw new IOException("Timed out while awaiting for next chunk ");
+          }
           
           checkBounds(chunk);
+          if(progress.isReceived(chunk.getOffset()))
+            continue;//duplicate on a resend
+          
+          if(!chunk.isChecksumValid())
+          {
+            log.warn("Checksum mismatch for chunk "+chunk.getOffset()+" of file "+chunk.getFileName());
+            requestResend(chunk.getOffset(), chunk.getOffset() + 1);
+            continue;
+          }
           
           writer.writeNext(chunk);
+          progress.mark(chunk);
+          retryCount.set(0);
           
-          bytesRead += chunk.getChunk().length;
-          offset++;
-          isLastChunk = chunk.getFileSize() == bytesRead;
+          if(chunk.getOffset() > highest + 1)
+          {
+            //chunks in between have been missed
+            requestResend(highest + 1, chunk.getOffset());
+          }
+          highest = Math.max(highest, chunk.getOffset());
+          acknowledge(writer);
         }
-        sendMessage(RECV_FILE_ACK);
+      }
+      
+      if(fileDigest != null && !fileDigest.equals(digest(target)))
+      {
+        //the chunks cannot be trusted for a resume either
+        progress = null;
+        throw new IOException("Digest of received file does not match ["+fileDigest+"]");
+      }
+    }
+    /**
+     * Persist the progress made, if any, so that the receipt can be resumed.
+     * @return if saved
+     */
+    private boolean saveProgress()
+    {
+      if(progress == null || progress.isEmpty() || progress.getFileDigest() == null)
+        return false;
+      try {
+        progress.save(target);
+        log.info("Receipt progress saved for file ["+target+"]. Received "+progress.contiguous()+" of "+progress.getChunks()+" chunks in sequence");
+        return true;
+      } catch (IOException e) {
+        log.warn("Unable to save receipt progress for file ["+target+"]. "+e.getMessage());
+        log.debug("", e);
+      }
+      return false;
+    }
+    /**
+     * Move a completely received file out of its partial directory, to the directory for the day.
+     * @return the file moved, or the target itself if it could not be moved
+     */
+    private File moveToDatedDir()
+    {
+      String day;
+      synchronized (df) {
+        day = df.format(new Date());
+      }
+      try 
+      {
+        Path dir = Files.createDirectories(Paths.get(fileWriteDir, day));
+        Path moved = Files.move(target.toPath(), dir.resolve(target.getName()), StandardCopyOption.REPLACE_EXISTING);
+        target.getParentFile().delete();
+        return moved.toFile();
+      } catch (IOException e) {
+        log.warn("Unable to move received file ["+target+"] to dated directory. "+e.getMessage());
+        log.debug("", e);
+      }
+      return target;
+    }
+    @Override
+    public void run() 
+    {
+      boolean fileReceived = false;
+      ExecutionException cause = null;
+      
+      try 
+      {
+        receive();
         fileReceived = true;
         
       } catch (InterruptedException e) {
-        sendMessage(RECV_FILE_ERR);
         receiver.markDiscard();
         cause = new ExecutionException("Unable to fetch file bytes", e);
       } catch (IOException e1) {
-        sendMessage(RECV_FILE_ERR);
         receiver.markDiscard();
         cause = new ExecutionException("Unable to write file", e1);
       } 
       catch (Exception e) {
-        sendMessage(RECV_FILE_ERR);
         receiver.markDiscard();
         cause = new ExecutionException("Unexpected error!", e);
       }
-    
-      if (chunk != null) 
+      finally
       {
-        File f = Paths.get(dirPath).resolve(chunk.getFileName()).toFile();
-        if (fileReceived) {
-          onFileReceiptSuccess(f);
-        } else {
-          f.delete();
-          onFileReceiptFailure(cause);
-        } 
+        //unsubscribe before the final ack, after which the sender destroys the session topic
+        receiver.close();
       }
-      else if(cause != null)
+      sendMessage(fileReceived ? new FileShareCommand(RECV_FILE_ACK, sessionId, progress.getChunks()) : new FileShareCommand(RECV_FILE_ERR, sessionId));
+    
+      if (fileReceived) {
+        FileReceiptProgress.delete(target);
+        onFileReceiptSuccess(moveToDatedDir());
+      } 
+      else 
       {
+        if (!saveProgress()) {
+          target.delete();
+          FileReceiptProgress.delete(target);
+          target.getParentFile().delete();
+        }
         onFileReceiptFailure(cause);
       }
     }
     
   }
+  /**
+   * Digest of the file content.
+   * @param f
+   * @return
+   * @throws IOException
+   */
+  static String digest(File f) throws IOException
+  {
+    Digestor d = Digestor.md5();
+    try(InputStream in = new BufferedInputStream(new FileInputStream(f)))
+    {
+      byte[] b = new byte[8192];
+      int n;
+      while((n = in.read(b)) != -1)
+      {
+        d.addBytes(b, 0, n);
+      }
+    }
+    return d.toString();
+  }
   /**
    * Create a new instance of {@linkplain AbstractFileChunkHandler} for writing the consumed
    * file bytes.
@@ -276,226 +518,420 @@ public abstract class AbstractFileSharingAgent implements MessageChannel<Byte>,
   @Override
   public Future<FileShareResponse> distribute(File f) throws IOException, OperationsException
   {
+    FileSendingTask task = new FileSendingTask(f, digest(f), newReadHandler(f));
+    sendingTasks.put(task.sessionId, task);
+    Future<FileShareResponse> response;
+    try {
+      response = threads.submit(task);
+    } catch (RejectedExecutionException e) {
+      sendingTasks.remove(task.sessionId);
+      task.closeReader();
+      throw new OperationsException("File sharing agent is not running", e);
+    }
+    
     try 
     {
-      if(tryLock(lockAwaitSecs, TimeUnit.SECONDS))
-      {
-        if(!initSendFileRequest())
-          throw new OperationsException("Unable to initiate a cluster wide send file request in "+lockAwaitSecs+" secs");
-        
-        Future<FileShareResponse> response = waitForFileReceiptAckAsync();
-        
-        try(FileChunkHandler reader = newReadHandler(f))
-        {
-          FileChunk fc = null;
-          while((fc = reader.readNext()) != null)
-          {
-            sender.sendMessage(fc);
-          }
-        }
-        
-        return response;
-      }
-      else
-      {
-        throw new OperationsException("Operation not allowed at this time. Probably some other sharing is running.");
-      }
+      task.awaitStarted();
+      return response;
     } 
     catch (InterruptedException e) {
       Thread.currentThread().interrupt();
-      throw new OperationsException("Interrupted while trying to acquire cluster lock.", e);
-    }
-    finally
-    {
-      unlock();
+      response.cancel(true);
+      throw new OperationsException("Interrupted while initiating file share.", e);
     }
     
   }
-  private final AtomicInteger sharingErrorCount = new AtomicInteger();
-  private volatile boolean awaitingFileReceiptAck, awaitingFileSendAck;
   /**
    * 
    * @return
    */
   public boolean isAwaitingFileReceiptAck() {
-    return awaitingFileReceiptAck;
+    for(FileSendingTask task : sendingTasks.values())
+    {
+      if(task.awaitingFileReceiptAck)
+        return true;
+    }
+    return false;
   }
   /**
    * 
    * @return
    */
   public boolean isAwaitingFileSendAck() {
-    return awaitingFileSendAck;
+    for(FileSendingTask task : sendingTasks.values())
+    {
+      if(task.awaitingFileSendAck)
+        return true;
+    }
+    return false;
   }
-  private Set<Member> fileReceiptErrored;
   /**
-   * This task is executed on the node which shares the file
+   * This task is executed on the node which shares the file. It holds a cluster lock on the file name
+   * for the duration of the share, and is the only consumer of the control messages for its session.
    */
-  private class FileShareResponseTask implements Callable<FileShareResponse>
+  private class FileSendingTask implements Callable<FileShareResponse>
   {
-
+    private final String sessionId = UUID.randomUUID().toString();
+    private final File file;
+    private final String fileDigest;
+    private final FileChunkHandler reader;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile OperationsException startError;
+    private volatile boolean awaitingFileReceiptAck, awaitingFileSendAck;
+    
+    private final BlockingQueue<Message<FileShareCommand>> events = new LinkedBlockingQueue<>();
+    /*
+     * Following are accessed only by the sending thread
+     */
+    private final Set<Member> receivers = new HashSet<>(), pending = new HashSet<>(), errored = new HashSet<>();
+    private final ConcurrentMap<Member, Integer> acked = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, FileChunk> window = new TreeMap<>();
+    private FileChunkSender sender;
+    
+    FileSendingTask(File file, String fileDigest, FileChunkHandler reader) {
+      this.file = file;
+      this.fileDigest = fileDigest;
+      this.reader = reader;
+    }
+    void awaitStarted() throws InterruptedException, OperationsException
+    {
+      started.await();
+      if(startError != null)
+        throw startError;
+    }
+    void closeReader()
+    {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        log.debug("", e);
+      }
+    }
+    
     @Override
     public FileShareResponse call() throws Exception {
-
-      FileShareResponse r = null;
+      Lock lock = hzService.getClusterLock("FileSharingAgent."+file.getName());
+      boolean locked = false;
       try 
       {
-        awaitingFileReceiptAck = true;
-        fileReceiptErrored = new HashSet<>();
-        boolean latched = latch.await(receiptAwaitSecs, TimeUnit.SECONDS);
-        if (latched) {
-          log.info(">> File sharing process returned successfully. Error count: "+sharingErrorCount);
-          r = FileShareResponse.FINISH;
-          r.setErrorCount(sharingErrorCount.get());
-          for(Member m : fileReceiptErrored)
-          {
-            r.getErrorNodes().add(m.getStringAttribute(Configurator.NODE_INSTANCE_ID));
-          }
-          
+        locked = lock.tryLock(lockAwaitSecs, TimeUnit.SECONDS);
+        if(!locked)
+        {
+          startError = new OperationsException("Operation not allowed at this time. Probably the file is being shared already.");
+          return response(FileShareResponse.Status.ERROR);
         }
-        else
+        if(!initSendFileRequest())
         {
-          log.error(">> File sharing process timed out after waiting "+receiptAwaitSecs+" seconds <<");
-          r = FileShareResponse.TIMEOUT;
-          r.setErrorCount(sharingErrorCount.get());
-          for(Member m : fileReceiptErrored)
+          startError = new OperationsException("Unable to initiate a cluster wide send file request in "+sendAwaitSecs+" secs");
+          return response(FileShareResponse.Status.ERROR);
+        }
+        started.countDown();
+        
+        return transfer();
+      } 
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (started.getCount() > 0) {
+          startError = new OperationsException("Interrupted while trying to acquire cluster lock.", e);
+        }
+        return response(FileShareResponse.Status.ERROR);
+      }
+      finally
+      {
+        sendingTasks.remove(sessionId);
+        closeReader();
+        if(locked)
+          lock.unlock();
+        started.countDown();
+      }
+    }
+    /**
+     * Sends a signal to cluster that a new file sharing will start.
+     * Will wait for {@link #sendAwaitSecs} to receive acknowledgement from members.
+     * @return if success
+     * @throws InterruptedException 
+     */
+    private boolean initSendFileRequest() throws InterruptedException 
+    {
+      int expected = hzService.size() - 1;
+      awaitingFileSendAck = true;
+      try 
+      {
+        FileShareCommand request = new FileShareCommand(SEND_FILE, sessionId);
+        request.setFileName(file.getName());
+        request.setFileDigest(fileDigest);
+        sendMessage(request);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(sendAwaitSecs);
+        while (receivers.size() < expected) 
+        {
+          if(!awaitEvent(deadline))
+            return false;
+        }
+        return true;
+      } 
+      finally {
+        awaitingFileSendAck = false;
+      }
+    }
+    /**
+     * Publishes the file chunks, keeping at most {@link #windowChunks} unacknowledged chunks in flight.
+     * @return
+     * @throws InterruptedException
+     */
+    private FileShareResponse transfer() throws InterruptedException
+    {
+      long start = System.currentTimeMillis();
+      try(FileChunkSender s = new FileChunkSender(hzService, sessionId))
+      {
+        sender = s;
+        FileChunk fc = null;
+        int resumeFrom = minAcked();
+        if(resumeFrom > 0 && resumeFrom < Integer.MAX_VALUE)
+          log.info("Resuming share of file ["+file+"] from chunk "+resumeFrom);
+        
+        while((fc = reader.readNext()) != null)
+        {
+          if(fc.getOffset() < resumeFrom)
           {
-            r.getErrorNodes().add(m.getStringAttribute(Configurator.NODE_INSTANCE_ID));
+            reader.release(fc);
+            continue;
           }
           
+          fc.setChecksum(fc.computeChecksum());
+          fc.setFileDigest(fileDigest);
+          fc.setCodec(chunkCodec);
+          awaitWindow(fc.getOffset());
+          window.put(fc.getOffset(), fc);
+          sender.sendMessage(fc);
+          
+          Message<FileShareCommand> event;
+          while((event = events.poll()) != null)
+          {
+            onEvent(event);
+          }
+        }
+        
+        awaitingFileReceiptAck = true;
+        if(awaitReceipts())
+        {
+          long time = Math.max(1, System.currentTimeMillis() - start);
+          log.info(">> File sharing process returned successfully. Error count: "+errored.size());
+          log.info(">> Shared "+file.length()+" bytes in "+time+" ms ("+String.format("%.2f", (file.length() * 1000.0 / time) / (1024 * 1024))+" MB/s)");
+          return response(FileShareResponse.Status.FINISH);
         }
-      } catch (Exception e) {
-        log.debug("Execution exception stacktrace:", e);
-        r = FileShareResponse.ERROR;
-        r.setErrorCount(sharingErrorCount.get());
-        for(Member m : fileReceiptErrored)
+        else
         {
-          r.getErrorNodes().add(m.getStringAttribute(Configurator.NODE_INSTANCE_ID));
+          log.error(">> File sharing process timed out after waiting "+receiptAwaitSecs+" seconds <<");
+          return response(FileShareResponse.Status.TIMEOUT);
         }
+        
+      } 
+      catch (IOException e) {
+        log.error("Unable to read file to share", e);
+        return response(FileShareResponse.Status.ERROR);
       }
       finally
       {
-        latch = null;
         awaitingFileReceiptAck = false;
-        fileReceiptErrored = null;
+        sender = null;
       }
-      return r;
-      
-    
     }
     
-  }
-  /**
-   * Awaits file receipt acknowledgement from members, for a maximum of 600 seconds.
-   * This wait is on the master.
-   * @return 
-   */
-  private Future<FileShareResponse> waitForFileReceiptAckAsync() 
-  {
-    latch = new CountDownLatch(hzService.size() - 1);
-    sharingErrorCount.getAndSet(0);
-        
-    return threads.submit(new FileShareResponseTask());
-  }
-  
-  private CountDownLatch latch;
-  /**
-   * Distributed lock
-   * @param duration
-   * @param unit
-   * @return
-   * @throws InterruptedException
-   */
-  private boolean tryLock(long duration, TimeUnit unit) throws InterruptedException
-  {
-    Lock lock = hzService.getClusterLock("FileSharingAgent");
-    return lock.tryLock(duration, unit);
-  }
-  /**
-   * Distributed unlock
-   */
-  private void unlock()
-  {
-    Lock lock = hzService.getClusterLock("FileSharingAgent");
-    lock.unlock();
-  }
-  /**
-   * Sends a signal to cluster that a new file sharing will start.
-   * Will wait for 30 seconds to receive acknowledgement from members.
-   * @return if success
-   */
-  private boolean initSendFileRequest() 
-  {
-    try 
+    private FileShareResponse response(FileShareResponse.Status status)
     {
-      latch = new CountDownLatch(hzService.size() - 1);
-      sendMessage(SEND_FILE);
-      awaitingFileSendAck = true;
-      return latch.await(sendAwaitSecs, TimeUnit.SECONDS);
-        
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      log.debug("", e);
+      FileShareResponse r = new FileShareResponse(status);
+      r.setErrorCount(errored.size());
+      for(Member m : errored)
+      {
+        r.getErrorNodes().add(m.getStringAttribute(Configurator.NODE_INSTANCE_ID));
+      }
+      return r;
     }
-    finally
+    /**
+     * Waits till all receivers have acknowledged, or errored.
+     * @return false if timed out
+     * @throws InterruptedException
+     */
+    private boolean awaitReceipts() throws InterruptedException
     {
-      latch = null;
-      awaitingFileSendAck = false;
+      long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(receiptAwaitSecs);
+      while(!pending.isEmpty())
+      {
+        if(!awaitEvent(deadline))
+          return false;
+      }
+      return true;
+    }
+    /**
+     * Waits till the chunk at offset falls within the window of the slowest receiver. Receivers
+     * not acknowledging till they would have exhausted their retries, are dropped from the window.
+     * @param offset
+     * @throws InterruptedException
+     */
+    private void awaitWindow(int offset) throws InterruptedException
+    {
+      long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(chunkAwaitSecs * (chunkRetries + 1));
+      while(offset - minAcked() >= windowChunks)
+      {
+        if(!awaitEvent(deadline))
+        {
+          int min = minAcked();
+          for(Entry<Member, Integer> e : acked.entrySet())
+          {
+            if(e.getValue() == min)
+            {
+              log.warn("Receiver "+e.getKey()+" lagging at chunk "+min+". Dropping from window");
+              errored.add(e.getKey());
+              acked.remove(e.getKey());
+            }
+          }
+        }
+      }
+      releaseAcked();
+    }
+    /**
+     * Drop the chunks acknowledged by all receivers from the window, releasing them to the reader.
+     */
+    private void releaseAcked()
+    {
+      NavigableMap<Integer, FileChunk> acknowledged = window.headMap(minAcked(), false);
+      for(FileChunk fc : acknowledged.values())
+      {
+        reader.release(fc);
+      }
+      acknowledged.clear();
+    }
+    private int minAcked()
+    {
+      return acked.isEmpty() ? Integer.MAX_VALUE : Collections.min(acked.values());
+    }
+    /**
+     * Waits for the next control event.
+     * @param deadline
+     * @return false if deadline passed
+     * @throws InterruptedException
+     */
+    private boolean awaitEvent(long deadline) throws InterruptedException
+    {
+      long wait = deadline - System.currentTimeMillis();
+      if(wait <= 0)
+        return false;
+      Message<FileShareCommand> event = events.poll(wait, TimeUnit.MILLISECONDS);
+      if(event == null)
+        return false;
+      onEvent(event);
+      return true;
+    }
+    private void onEvent(Message<FileShareCommand> event)
+    {
+      Member member = event.getPublishingMember();
+      FileShareCommand cmd = event.getMessageObject();
+      switch(cmd.getCommand())
+      {
+        case SEND_FILE_ACK:
+          if(awaitingFileSendAck && receivers.add(member))
+          {
+            pending.add(member);
+            acked.put(member, cmd.getOffset());
+          }
+          break;
+        case CHUNK_ACK:
+          if(acked.containsKey(member))
+            acked.put(member, cmd.getOffset());
+          break;
+        case CHUNK_RESEND:
+          if(pending.contains(member))
+            resend(cmd);
+          break;
+        case RECV_FILE_ACK:
+          if(pending.remove(member))
+          {
+            acked.remove(member);
+            errored.remove(member);
+          }
+          break;
+        case RECV_FILE_ERR:
+          if(awaitingFileSendAck && receivers.add(member))
+          {
+            //failed before acknowledging
+            errored.add(member);
+            log.error("*** RECV_FILE_ERR *** from "+member);
+          }
+          else if(pending.remove(member))
+          {
+            acked.remove(member);
+            errored.add(member);
+            log.error("*** RECV_FILE_ERR *** from "+member);
+          }
+          break;
+        default: break;
+      }
+    }
+    /**
+     * Resend the requested chunks, if still in window.
+     * @param cmd
+     */
+    private void resend(FileShareCommand cmd)
+    {
+      if(sender == null)
+        return;
+      int[] offsets = cmd.getOffsets();
+      if(offsets == null || offsets.length == 0)
+      {
+        for(FileChunk fc : window.tailMap(cmd.getOffset()).values())
+        {
+          sender.sendMessage(fc);
+        }
+      }
+      else
+      {
+        for(int offset : offsets)
+        {
+          FileChunk fc = window.get(offset);
+          if(fc != null)
+            sender.sendMessage(fc);
+          else
+            log.warn("Chunk "+offset+" no longer in window for resend");
+        }
+      }
     }
-    return false;
   }
+  
   @Override
-  public void onMessage(Message<Byte> message) 
+  public void onMessage(Message<FileShareCommand> message) 
   {
     if(message.getPublishingMember().localMember())
       return;
     
-    switch(message.getMessageObject())
+    FileShareCommand cmd = message.getMessageObject();
+    if(cmd.getCommand() == SEND_FILE)
     {
-      case SEND_FILE_ACK:
-      if (awaitingFileSendAck) {
-        latch.countDown();
-      }
-      break;
-      case SEND_FILE:
-        startFileConsumingTask();
-        break;
-      case RECV_FILE_ACK:
-        if (awaitingFileReceiptAck) {
-          latch.countDown();
-        }
-        break;
-      case RECV_FILE_ERR:
-        if (awaitingFileReceiptAck) {
-          sharingErrorCount.incrementAndGet();
-          fileReceiptErrored.add(message.getPublishingMember());
-          latch.countDown();
-          log.error("*** RECV_FILE_ERR ***");
-        }
-        
-        break;
-        default: break;
+      startFileConsumingTask(cmd);
+      return;
+    }
+    FileSendingTask task = sendingTasks.get(cmd.getSessionId());
+    if(task != null)
+    {
+      task.events.offer(message);
     }
     
   }
   /**
-   * Acknowledge a new file to be received, and starts a separate thread for consuming.
-   * the data
-   * @return 
+   * Starts a separate thread for consuming the data of a new file to be received. The task
+   * would acknowledge the request, along with the chunks it can resume from.
+   * @param request
    */
-  private long startFileConsumingTask() {
-    FileConsumingTask ah = new FileConsumingTask();
+  private void startFileConsumingTask(FileShareCommand request) {
+    FileConsumingTask ah = new FileConsumingTask(request);
     threads.submit(ah);
-    sendMessage(SEND_FILE_ACK);
-    log.info("New file consuming task submitted- "+ah.id);
-    return ah.id;
+    log.info("New file consuming task submitted- "+request.getSessionId());
   }
   @Override
   public String topic() {
     return "FileSharingAgent-Topic";
   }
   @Override
-  public void sendMessage(Byte message) {
+  public void sendMessage(FileShareCommand message) {
     hzService.publish(message, topic());   
   }
 }
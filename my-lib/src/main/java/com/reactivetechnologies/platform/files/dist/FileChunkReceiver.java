@@ -28,7 +28,8 @@ SOFTWARE.
 */
 package com.reactivetechnologies.platform.files.dist;
 
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -50,16 +51,33 @@ public class FileChunkReceiver extends AbstractMessageChannel<FileChunk> {
    * @param hzService
    */
   public FileChunkReceiver(HazelcastClusterServiceBean hzService) {
-    super(hzService, true);
+    this(hzService, null);
     
   }
-  
-  
-  @Override
-  public String topic() {
-    return Configurator.PIPED_TOPIC_FILE;
+  /**
+   * Receiver on a stream session. Only chunks published on the session are received.
+   * @param hzService
+   * @param sessionId
+   * @see Configurator#pipedTopic(String)
+   */
+  public FileChunkReceiver(HazelcastClusterServiceBean hzService, String sessionId) {
+    this(hzService, sessionId, DEFAULT_QUEUE_CAPACITY);
+    
+  }
+  /**
+   * Receiver on a stream session, buffering up to the given number of chunks. A sender can thus
+   * have that many chunks in flight, without the listener blocking on the consumer.
+   * @param hzService
+   * @param sessionId
+   * @param capacity
+   * @see Configurator#pipedTopic(String)
+   */
+  public FileChunkReceiver(HazelcastClusterServiceBean hzService, String sessionId, int capacity) {
+    super(hzService, true, Configurator.pipedTopic(sessionId));
+    queue = new ArrayBlockingQueue<>(capacity);
   }
-  private SynchronousQueue<FileChunk> queue = new SynchronousQueue<>(true);
+  static final int DEFAULT_QUEUE_CAPACITY = 64;
+  private final BlockingQueue<FileChunk> queue;
   
   /**
    * Blocking get.
@@ -42,11 +42,16 @@ public class FileChunkSender extends AbstractMessageChannel<FileChunk> {
    * @param hzService
    */
   public FileChunkSender(HazelcastClusterServiceBean hzService) {
-    super(hzService, true);
+    this(hzService, null);
   }
-  @Override
-  public String topic() {
-    return Configurator.PIPED_TOPIC_FILE;
+  /**
+   * Sender on a stream session.
+   * @param hzService
+   * @param sessionId
+   * @see Configurator#pipedTopic(String)
+   */
+  public FileChunkSender(HazelcastClusterServiceBean hzService, String sessionId) {
+    super(hzService, true, Configurator.pipedTopic(sessionId));
   }
 
   @Override
@@ -54,5 +59,15 @@ public class FileChunkSender extends AbstractMessageChannel<FileChunk> {
     // ignored
     
   }
+  /**
+   * Destroys the session topic as well, if any. Receivers are expected to have unsubscribed
+   * by the time the sender closes.
+   */
+  @Override
+  public void close() {
+    super.close();
+    if(Configurator.isSessionTopic(topic()))
+      hazelcastService.destroyTopic(topic());
+  }
   
 }
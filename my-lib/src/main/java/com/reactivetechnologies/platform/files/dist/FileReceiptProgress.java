@@ -0,0 +1,256 @@
+/* ============================================================================
+*
+* FILE: FileReceiptProgress.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.files.dist;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.reactivetechnologies.platform.files.FileChunk;
+/**
+ * Chunks received for a file, along with their checksums. The progress is persisted beside the
+ * target file, so that a failed receipt can later be resumed from the chunks already verified.
+ */
+class FileReceiptProgress {
+
+  private static final Logger log = LoggerFactory.getLogger(FileReceiptProgress.class);
+  static final String FILE_EXT = ".progress";
+  
+  private final String fileDigest;
+  private final int chunks;
+  private final long fileSize;
+  private int chunkSize;
+  private final BitSet received;
+  private final long[] checksums;
+  /**
+   * 
+   * @param fileDigest
+   * @param chunks
+   * @param fileSize
+   */
+  FileReceiptProgress(String fileDigest, int chunks, long fileSize) {
+    this.fileDigest = fileDigest;
+    this.chunks = chunks;
+    this.fileSize = fileSize;
+    received = new BitSet(chunks);
+    checksums = new long[chunks];
+  }
+  /**
+   * The progress file for a given target file.
+   * @param target
+   * @return
+   */
+  static File progressFile(File target)
+  {
+    return new File(target.getParentFile(), target.getName() + FILE_EXT);
+  }
+  /**
+   * Load a previously saved progress of the target file, if it is for the same file digest.
+   * @param target
+   * @param fileDigest
+   * @return null if no matching progress found
+   */
+  static FileReceiptProgress load(File target, String fileDigest)
+  {
+    File f = progressFile(target);
+    if(!f.exists() || !target.exists() || fileDigest == null)
+      return null;
+    
+    try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f))))
+    {
+      String digest = in.readUTF();
+      if(!fileDigest.equals(digest))
+      {
+        log.info("Ignoring progress of a different version of file "+target);
+        return null;
+      }
+      FileReceiptProgress p = new FileReceiptProgress(digest, in.readInt(), in.readLong());
+      p.chunkSize = in.readInt();
+      long[] words = new long[in.readInt()];
+      for (int i = 0; i < words.length; i++) {
+        words[i] = in.readLong();
+      }
+      p.received.or(BitSet.valueOf(words));
+      for (int i = 0; i < p.chunks; i++) {
+        p.checksums[i] = in.readLong();
+      }
+      return p;
+      
+    } catch (IOException e) {
+      log.warn("Unable to load receipt progress from "+f+". "+e.getMessage());
+      log.debug("", e);
+    }
+    return null;
+  }
+  /**
+   * Persist this progress beside the target file.
+   * @param target
+   * @throws IOException
+   */
+  void save(File target) throws IOException
+  {
+    File f = progressFile(target);
+    File tmp = new File(f.getParentFile(), f.getName() + ".tmp");
+    try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp))))
+    {
+      out.writeUTF(fileDigest);
+      out.writeInt(chunks);
+      out.writeLong(fileSize);
+      out.writeInt(chunkSize);
+      long[] words = received.toLongArray();
+      out.writeInt(words.length);
+      for(long w : words)
+      {
+        out.writeLong(w);
+      }
+      for(long c : checksums)
+      {
+        out.writeLong(c);
+      }
+    }
+    Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+  /**
+   * Delete the persisted progress, if any.
+   * @param target
+   */
+  static void delete(File target)
+  {
+    progressFile(target).delete();
+  }
+  /**
+   * Re-verify the chunks marked as received, against the bytes in the target file. Chunks
+   * failing the verification are unmarked.
+   * @param target
+   * @return the no of contiguous chunks verified
+   */
+  int verify(File target)
+  {
+    if(chunkSize <= 0 && chunks > 1)
+      received.clear();
+    
+    try(RandomAccessFile raf = new RandomAccessFile(target, "r"))
+    {
+      byte[] bytes = new byte[chunks > 1 ? chunkSize : (int) fileSize];
+      CRC32 crc = new CRC32();
+      for (int i = received.nextSetBit(0); i >= 0; i = received.nextSetBit(i + 1)) {
+        long pos = (long) i * chunkSize;
+        int len = (int) Math.min(bytes.length, fileSize - pos);
+        if(len <= 0 || pos + len > raf.length())
+        {
+          received.clear(i);
+          continue;
+        }
+        raf.seek(pos);
+        raf.readFully(bytes, 0, len);
+        crc.reset();
+        crc.update(bytes, 0, len);
+        if(crc.getValue() != checksums[i])
+          received.clear(i);
+      }
+    } catch (IOException e) {
+      log.warn("Unable to verify partially received file "+target+". "+e.getMessage());
+      log.debug("", e);
+      received.clear();
+    }
+    return contiguous();
+  }
+  /**
+   * Mark a chunk as received.
+   * @param chunk
+   */
+  void mark(FileChunk chunk)
+  {
+    received.set(chunk.getOffset());
+    checksums[chunk.getOffset()] = chunk.getChecksum();
+    if(chunkSize == 0 && chunk.getOffset() > 0)
+      chunkSize = (int) (chunk.getPosition() / chunk.getOffset());
+    else if(chunkSize == 0 && chunk.getOffset() < chunks - 1)
+      chunkSize = chunk.getLength();
+  }
+  boolean isReceived(int offset)
+  {
+    return received.get(offset);
+  }
+  boolean isComplete()
+  {
+    return received.cardinality() == chunks;
+  }
+  /**
+   * No of contiguous chunks received from the beginning.
+   * @return
+   */
+  int contiguous()
+  {
+    return received.nextClearBit(0);
+  }
+  /**
+   * Index of the highest chunk received, or -1.
+   * @return
+   */
+  int highest()
+  {
+    return received.length() - 1;
+  }
+  /**
+   * Index of the next chunk not received, from the given index.
+   * @param from
+   * @return
+   */
+  int nextMissing(int from)
+  {
+    return received.nextClearBit(from);
+  }
+  boolean isEmpty()
+  {
+    return received.isEmpty();
+  }
+  long getFileSize() {
+    return fileSize;
+  }
+  int getChunks() {
+    return chunks;
+  }
+  String getFileDigest() {
+    return fileDigest;
+  }
+}
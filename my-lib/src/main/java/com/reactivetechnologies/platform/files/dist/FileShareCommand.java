@@ -0,0 +1,159 @@
+/* ============================================================================
+*
+* FILE: FileShareCommand.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.files.dist;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.DataSerializable;
+/**
+ * Control message exchanged between {@linkplain AbstractFileSharingAgent agents} for a file share session.
+ */
+public class FileShareCommand implements DataSerializable {
+
+  private byte command;
+  private String sessionId;
+  /**
+   * Chunk index, the meaning of which depends on the command
+   */
+  private int offset;
+  /**
+   * Chunk indexes requested for resend
+   */
+  private int[] offsets = new int[0];
+  /**
+   * File being shared, and its digest
+   */
+  private String fileName, fileDigest;
+  
+  /**
+   * Default constructor
+   */
+  public FileShareCommand() {
+    super();
+  }
+  /**
+   * 
+   * @param command
+   * @param sessionId
+   */
+  public FileShareCommand(byte command, String sessionId) {
+    this(command, sessionId, 0);
+  }
+  /**
+   * 
+   * @param command
+   * @param sessionId
+   * @param offset
+   */
+  public FileShareCommand(byte command, String sessionId, int offset) {
+    super();
+    this.command = command;
+    this.sessionId = sessionId;
+    this.offset = offset;
+  }
+
+  public byte getCommand() {
+    return command;
+  }
+
+  public void setCommand(byte command) {
+    this.command = command;
+  }
+
+  public String getSessionId() {
+    return sessionId;
+  }
+
+  public void setSessionId(String sessionId) {
+    this.sessionId = sessionId;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public void setOffset(int offset) {
+    this.offset = offset;
+  }
+
+  public int[] getOffsets() {
+    return offsets;
+  }
+
+  public void setOffsets(int[] offsets) {
+    this.offsets = offsets;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public void setFileName(String fileName) {
+    this.fileName = fileName;
+  }
+
+  public String getFileDigest() {
+    return fileDigest;
+  }
+
+  public void setFileDigest(String fileDigest) {
+    this.fileDigest = fileDigest;
+  }
+
+  @Override
+  public void writeData(ObjectDataOutput out) throws IOException {
+    out.writeByte(getCommand());
+    out.writeUTF(getSessionId());
+    out.writeInt(getOffset());
+    out.writeIntArray(getOffsets());
+    out.writeUTF(getFileName());
+    out.writeUTF(getFileDigest());
+  }
+
+  @Override
+  public void readData(ObjectDataInput in) throws IOException {
+    setCommand(in.readByte());
+    setSessionId(in.readUTF());
+    setOffset(in.readInt());
+    setOffsets(in.readIntArray());
+    setFileName(in.readUTF());
+    setFileDigest(in.readUTF());
+  }
+
+  @Override
+  public String toString() {
+    return "FileShareCommand [command=" + command + ", sessionId=" + sessionId
+        + ", offset=" + offset + ", offsets=" + Arrays.toString(offsets)
+        + ", fileName=" + fileName + ", fileDigest=" + fileDigest + "]";
+  }
+
+}
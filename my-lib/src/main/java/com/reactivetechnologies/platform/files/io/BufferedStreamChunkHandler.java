@@ -32,10 +32,12 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,12 +45,14 @@ import org.slf4j.LoggerFactory;
 import com.reactivetechnologies.platform.files.FileChunk;
 import com.reactivetechnologies.platform.files.dist.AbstractFileChunkHandler;
 /**
- * Reads and writes using buffered stream
+ * Reads and writes using buffered stream. Writes are buffered as long as chunks arrive in sequence,
+ * else the stream is flushed and the underlying channel is positioned at the chunk.
  */
 public class BufferedStreamChunkHandler extends AbstractFileChunkHandler {
 
   private InputStream iStream;
   private OutputStream oStream;
+  private FileChannel oChannel;
   private static final Logger log = LoggerFactory.getLogger(BufferedStreamChunkHandler.class);
   /**
    * Write mode.
@@ -90,7 +94,14 @@ public class BufferedStreamChunkHandler extends AbstractFileChunkHandler {
     }
   }
 
+  @Override
+  public void flush() throws IOException {
+    if(oStream != null)
+      oStream.flush();
+  }
+
   private int idx = 0, readSize;
+  private long position = 0;
   @Override
   public FileChunk readNext() throws IOException {
         
@@ -102,7 +113,9 @@ public class BufferedStreamChunkHandler extends AbstractFileChunkHandler {
       FileChunk chunk = new FileChunk(fileName, fileSize, creationTime, lastAccessTime, lastModifiedTime);
       chunk.setChunk(read);
       chunk.setOffset(idx++);
+      chunk.setPosition(position);
       chunk.setSize(chunks);
+      position += read.length;
       log.debug("[readNext] "+chunk);
       return chunk;
     }
@@ -115,7 +128,8 @@ public class BufferedStreamChunkHandler extends AbstractFileChunkHandler {
     if(file == null)
     {
       initWriteFile(chunk);
-      oStream = new BufferedOutputStream(new FileOutputStream(file, true));
+      oChannel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+      oStream = new BufferedOutputStream(Channels.newOutputStream(oChannel));
       log.info("Writing to target file ["+file+"]. Expecting chunks to receive- "+chunk.getSize());
       if(log.isDebugEnabled())
       {
@@ -126,11 +140,15 @@ public class BufferedStreamChunkHandler extends AbstractFileChunkHandler {
     
     doAttribCheck(chunk);
     log.debug("[writeNext] "+chunk);
+    if(chunk.getPosition() != position)
+    {
+      //out of sequence
+      oStream.flush();
+      oChannel.position(chunk.getPosition());
+    }
     oStream.write(chunk.getChunk());
-    fileSize += chunk.getChunk().length;
-    
-    if(fileSize > chunk.getFileSize())
-      throw new IOException("File size ["+fileSize+"] greater than expected size ["+chunk.getFileSize()+"]");
+    position = chunk.getPosition() + chunk.getChunk().length;
+    fileSize = Math.max(fileSize, position);
     
   }
   
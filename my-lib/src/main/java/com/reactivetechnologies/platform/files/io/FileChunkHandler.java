@@ -29,13 +29,14 @@ SOFTWARE.
 package com.reactivetechnologies.platform.files.io;
 
 import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
 
 import com.reactivetechnologies.platform.files.FileChunk;
 /**
  * Handler for file chunks.
  */
-public interface FileChunkHandler extends Closeable{
+public interface FileChunkHandler extends Closeable, Flushable{
 
   /**
    * Reads the next chunk available or returns null if EOF encountered
@@ -45,10 +46,17 @@ public interface FileChunkHandler extends Closeable{
   FileChunk readNext() throws IOException;
 
   /**
-   * Writes next chunk of file to the underlying stream
+   * Writes next chunk of file to the underlying stream, at the {@linkplain FileChunk#getPosition() position} of the chunk.
+   * Chunks may be written out of order.
    * @param chunk
    * @throws IOException
    */
   void writeNext(FileChunk chunk) throws IOException;
+  /**
+   * Invoked once a chunk read is no longer referenced, say when it is acknowledged by all receivers. The chunk
+   * should not be accessed any further, as a handler may reclaim the buffer it was read into.
+   * @param chunk
+   */
+  void release(FileChunk chunk);
 
 }
\ No newline at end of file
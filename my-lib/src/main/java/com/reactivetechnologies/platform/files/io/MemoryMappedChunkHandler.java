@@ -31,10 +31,14 @@ package com.reactivetechnologies.platform.files.io;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,10 +47,21 @@ import org.springframework.util.ReflectionUtils;
 import com.reactivetechnologies.platform.files.FileChunk;
 import com.reactivetechnologies.platform.files.dist.AbstractFileChunkHandler;
 /**
- * Reads and writes using mapped byte buffer
+ * Reads and writes using mapped byte buffer. The file is mapped in fixed size windows, sliding over
+ * the file as it is read or written, rather than mapping the whole file at once.
+ * <p>
+ * On read, chunks are {@linkplain FileChunk#setChunk(ByteBuffer) views} over the mapped window, without copying.
+ * Since such chunks may be referenced for a while (say, awaiting a resend), a read window is unmapped only once 
+ * it has been read through and all its chunks are {@linkplain #release(FileChunk) released}, or on close. On write, 
+ * the file is preallocated to its expected size, and a window is forced and unmapped as soon as a chunk falls 
+ * outside it, and on close.
  */
 public class MemoryMappedChunkHandler extends AbstractFileChunkHandler {
 
+  /**
+   * Default size of a mapped window, in bytes.
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 32 * 1024 * 1024;
   private FileChannel iStream;
   private FileChannel oStream;
   private static final Logger log = LoggerFactory.getLogger(MemoryMappedChunkHandler.class);
@@ -56,9 +71,20 @@ public class MemoryMappedChunkHandler extends AbstractFileChunkHandler {
    */
   public MemoryMappedChunkHandler(String writeDir) throws IOException
   {
-    super(writeDir);
+    this(writeDir, DEFAULT_WINDOW_SIZE);
     
   }
+  /**
+   * Write mode, with the given size of mapped window.
+   * @param writeDir
+   * @param windowSize
+   * @throws IOException
+   */
+  public MemoryMappedChunkHandler(String writeDir, int windowSize) throws IOException
+  {
+    super(writeDir);
+    this.windowSize = windowSize;
+  }
   /**
    * Read mode.
    * @param f
@@ -66,11 +92,22 @@ public class MemoryMappedChunkHandler extends AbstractFileChunkHandler {
    * @throws IOException
    */
   public MemoryMappedChunkHandler(File f, int chunkSize) throws IOException {
+    this(f, chunkSize, DEFAULT_WINDOW_SIZE);
+  }
+  /**
+   * Read mode, with the given size of mapped window. The window is rounded to a multiple of chunk size,
+   * so that a chunk never spans windows.
+   * @param f
+   * @param chunkSize
+   * @param windowSize
+   * @throws IOException
+   */
+  public MemoryMappedChunkHandler(File f, int chunkSize, int windowSize) throws IOException {
     super(f);
     iStream = FileChannel.open(file.toPath(), StandardOpenOption.READ);
     readSize = chunkSize;
     chunks = fileSize % readSize == 0 ? (int) ((fileSize / readSize)) : (int) ((fileSize / readSize) + 1);
-    mapBuff = iStream.map(MapMode.READ_ONLY, 0, getFileSize());
+    this.windowSize = Math.max(1, windowSize / readSize) * readSize;
     if(log.isDebugEnabled())
     {
       debugInitialParams();
@@ -79,60 +116,169 @@ public class MemoryMappedChunkHandler extends AbstractFileChunkHandler {
   }
   
   protected int chunks;
-  @Override
-  public void close() throws IOException {
-    if (iStream != null) {
-      iStream.force(true);
-      iStream.close();
+  private final int windowSize;
+  /**
+   * A mapped read window, with the no of its chunks read but not released.
+   */
+  private static final class ReadWindow
+  {
+    private final MappedByteBuffer buffer;
+    private int outstanding = 0;
+    private boolean readThrough = false;
+    ReadWindow(MappedByteBuffer buffer) {
+      this.buffer = buffer;
     }
-    if(oStream != null){
-      oStream.force(true);
-      oStream.close();
+    boolean isReleasable()
+    {
+      return readThrough && outstanding == 0;
     }
-    if(mapBuff != null)
-      unmap(mapBuff);
+  }
+  /**
+   * Read windows not unmapped yet, by file position.
+   */
+  private final Map<Long, ReadWindow> readWindows = new HashMap<>();
+  private final BitSet released = new BitSet();
+  private ReadWindow readWindow;
+  
+  private void unmapReadWindow(long position)
+  {
+    ReadWindow w = readWindows.remove(position);
+    if(w != null)
+    {
+      unmap(w.buffer);
+      log.debug("Unmapped window at "+position);
+    }
+  }
+  @Override
+  public synchronized void release(FileChunk chunk) {
+    if(iStream == null || released.get(chunk.getOffset()))
+      return;
+    released.set(chunk.getOffset());
+    long position = (chunk.getPosition() / windowSize) * windowSize;
+    ReadWindow w = readWindows.get(position);
+    if(w != null && --w.outstanding == 0 && w.readThrough)
+      unmapReadWindow(position);
+  }
+  @Override
+  public synchronized void close() throws IOException {
+    try 
+    {
+      if (oStream != null) {
+        releaseWindow();
+        oStream.force(true);
+      } 
+      for(ReadWindow w : readWindows.values())
+      {
+        unmap(w.buffer);
+      }
+      readWindows.clear();
+      readWindow = null;
+      mapBuff = null;
+    } 
+    finally 
+    {
+      if (iStream != null) {
+        iStream.close();
+      }
+      if (oStream != null) {
+        oStream.close();
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if(oStream != null && mapBuff != null)
+      mapBuff.force();
   }
 
   protected int idx = 0;
   protected int readSize;
+  /**
+   * File position of the current window
+   */
+  private long mapPosition = 0;
   @Override
-  public FileChunk readNext() throws IOException {
-        
-    if(mapBuff.hasRemaining())
+  public synchronized FileChunk readNext() throws IOException {
+    
+    if(mapBuff == null || !mapBuff.hasRemaining())
     {
-      log.debug("mapBuff.remaining() => "+mapBuff.remaining());
-      byte[] read = new byte[mapBuff.remaining() > readSize ? readSize : mapBuff.remaining()];
-      mapBuff.get(read);
-      FileChunk chunk = new FileChunk(fileName, fileSize, creationTime, lastAccessTime, lastModifiedTime);
-      chunk.setChunk(read);
-      chunk.setOffset(idx++);
-      chunk.setSize(chunks);
-      log.debug("[readNext] "+chunk);
-      return chunk;
+      long next = mapBuff == null ? 0 : mapPosition + mapBuff.capacity();
+      if(readWindow != null)
+      {
+        //the previous window may still be viewed by chunks read, so it is unmapped when they are released
+        readWindow.readThrough = true;
+        if(readWindow.isReleasable())
+          unmapReadWindow(mapPosition);
+        readWindow = null;
+      }
+      if(next >= fileSize)
+        return null;
+      
+      mapPosition = next;
+      mapBuff = iStream.map(MapMode.READ_ONLY, mapPosition, Math.min(windowSize, fileSize - mapPosition));
+      readWindow = new ReadWindow(mapBuff);
+      readWindows.put(mapPosition, readWindow);
+      log.debug("Mapped window at "+mapPosition+", size "+mapBuff.capacity());
     }
     
-    return null;
+    int len = Math.min(readSize, mapBuff.remaining());
+    ByteBuffer read = mapBuff.slice();
+    read.limit(len);
+    FileChunk chunk = new FileChunk(fileName, fileSize, creationTime, lastAccessTime, lastModifiedTime);
+    chunk.setChunk(read);
+    chunk.setOffset(idx++);
+    chunk.setPosition(mapPosition + mapBuff.position());
+    chunk.setSize(chunks);
+    mapBuff.position(mapBuff.position() + len);
+    readWindow.outstanding++;
+    log.debug("[readNext] "+chunk);
+    return chunk;
+    
   }
   protected MappedByteBuffer mapBuff;
-  private int position = 0;
+  private long expectedSize;
+  /**
+   * Force and unmap the current write window.
+   */
+  private void releaseWindow()
+  {
+    if(mapBuff != null)
+    {
+      mapBuff.force();
+      unmap(mapBuff);
+      mapBuff = null;
+    }
+  }
+  /**
+   * Slide the write window to cover the given file position.
+   * @param position
+   * @throws IOException
+   */
+  private void mapWindow(long position) throws IOException
+  {
+    if(mapBuff != null && position >= mapPosition && position < mapPosition + mapBuff.capacity())
+      return;
+    
+    releaseWindow();
+    mapPosition = (position / windowSize) * windowSize;
+    mapBuff = oStream.map(MapMode.READ_WRITE, mapPosition, Math.min(windowSize, expectedSize - mapPosition));
+    log.debug("Mapped window at "+mapPosition+", size "+mapBuff.capacity());
+  }
   @Override
   public void writeNext(FileChunk chunk) throws IOException {
     log.debug("[writeNext] "+chunk);
     if(file == null)
     {
       initWriteFile(chunk);
-      oStream = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      oStream = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      expectedSize = chunk.getFileSize();
       
-      /*
-       * From javadocs:
-       * "The behavior of this method when the requested region is not completely contained within this channel's file is unspecified. 
-       * Whether changes made to the content or size of the underlying file, by this program or another, are propagated to the buffer 
-       * is unspecified. The rate at which changes to the buffer are propagated to the file is unspecified."
-       * 
-       * Initially this is a 0 byte file. So how do we write to a new file??
-       */
-      log.debug("mapping byte buffer for write");
-      mapBuff = oStream.map(MapMode.READ_WRITE, 0, chunk.getFileSize());
+      //preallocate, so that windows are always mapped within the file
+      if(oStream.size() > expectedSize)
+        oStream.truncate(expectedSize);
+      else if(oStream.size() < expectedSize)
+        oStream.write(ByteBuffer.wrap(new byte[1]), expectedSize - 1);
       
       if(log.isDebugEnabled())
       {
@@ -144,20 +290,20 @@ public class MemoryMappedChunkHandler extends AbstractFileChunkHandler {
     
     doAttribCheck(chunk);
     
-    
-    //this is probably unreachable
-    if(!mapBuff.hasRemaining())
+    byte[] bytes = chunk.getChunk();
+    long position = chunk.getPosition();
+    int offset = 0;
+    while(offset < bytes.length)
     {
-      position += mapBuff.position();
-      unmap(mapBuff);
-      mapBuff = oStream.map(MapMode.READ_WRITE, position, chunk.getFileSize());
+      mapWindow(position);
+      int len = (int) Math.min(bytes.length - offset, mapPosition + mapBuff.capacity() - position);
+      ByteBuffer dst = mapBuff.duplicate();
+      dst.position((int) (position - mapPosition));
+      dst.put(bytes, offset, len);
+      offset += len;
+      position += len;
     }
-    
-    mapBuff.put(chunk.getChunk());
-    fileSize += chunk.getChunk().length;
-    
-    if(fileSize > chunk.getFileSize())
-      throw new IOException("File size ["+fileSize+"] greater than expected size ["+chunk.getFileSize()+"]");
+    fileSize = Math.max(fileSize, position);
         
   }
     
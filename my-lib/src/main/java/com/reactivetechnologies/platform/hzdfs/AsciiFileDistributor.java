@@ -43,6 +43,7 @@ import javax.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 
 import com.hazelcast.core.EntryEvent;
 import com.reactivetechnologies.platform.datagrid.core.HazelcastClusterServiceBean;
@@ -50,6 +51,7 @@ import com.reactivetechnologies.platform.datagrid.handlers.AbstractLocalMapEntry
 import com.reactivetechnologies.platform.files.FileShareResponse;
 import com.reactivetechnologies.platform.files.FileSharingAgent;
 import com.reactivetechnologies.platform.utils.ByteArrayBuilder;
+import com.reactivetechnologies.platform.utils.PayloadCodec;
 /**
  * Infrastructure class for a simple distributed file system over Hazelcast.
  */
@@ -58,6 +60,8 @@ public class AsciiFileDistributor
     implements FileSharingAgent {
 
   private static final Logger log = LoggerFactory.getLogger(AsciiFileDistributor.class);
+  @Value("${files.ascii.codec:NONE}")
+  private PayloadCodec codec = PayloadCodec.NONE;
   /**
    * New distributor instance.
    * @param hzService
@@ -171,6 +175,7 @@ public class AsciiFileDistributor
       while((chunk = reader.readNext()) != null)
       {
         log.debug("chunk.getRecordIndex()=> "+chunk.getRecordIndex());
+        chunk.setCodec(codec);
         putEntry(chunk.generateHashCode(), chunk);
         
       }
@@ -41,6 +41,7 @@ import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.DataSerializable;
 import com.reactivetechnologies.platform.utils.Digestor;
+import com.reactivetechnologies.platform.utils.PayloadCodec;
 /**
  * The data structure for submitting generic messages to the Hazelcast cluster.
  *
@@ -55,6 +56,7 @@ public class Event<T> implements DataSerializable, Serializable{
   private long genTimestamp = -1;
   private String correlationId = "";
   private String header = "";
+  private PayloadCodec codec = PayloadCodec.NONE;
   /**
    * returns a murmur hash of the payload bytes.
    * @return
@@ -126,7 +128,7 @@ public class Event<T> implements DataSerializable, Serializable{
     try {
       Output out = new Output(1024, -1);
       k.writeClassAndObject(out, item);
-      bytes = out.getBuffer();
+      bytes = out.toBytes();
     } finally {
       pool.release(k);
     }
@@ -138,7 +140,7 @@ public class Event<T> implements DataSerializable, Serializable{
     out.writeUTF(getCorrelationId());
     out.writeLong(getGenTimestamp());
     out.writeUTF(getHeader());
-    out.writeByteArray(bytes);
+    codec.write(out, bytes);
   }
 
   @Override
@@ -146,7 +148,7 @@ public class Event<T> implements DataSerializable, Serializable{
     setCorrelationId(in.readUTF());
     setGenTimestamp(in.readLong());
     setHeader(in.readUTF());
-    bytes = in.readByteArray();
+    bytes = PayloadCodec.read(in);
     
   }
   public long getGenTimestamp() {
@@ -167,6 +169,16 @@ public class Event<T> implements DataSerializable, Serializable{
   public void setHeader(String header) {
     this.header = header;
   }
+  /**
+   * Codec to encode the payload bytes with, on serialization.
+   * @return
+   */
+  public PayloadCodec getCodec() {
+    return codec;
+  }
+  public void setCodec(PayloadCodec codec) {
+    this.codec = codec;
+  }
 
   
 
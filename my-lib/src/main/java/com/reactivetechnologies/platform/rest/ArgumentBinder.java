@@ -0,0 +1,228 @@
+/* ============================================================================
+*
+* FILE: ArgumentBinder.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.rest;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Modifier;
+
+import org.webbitserver.HttpRequest;
+/**
+ * Binds a {@linkplain javax.ws.rs.PathParam} or {@linkplain javax.ws.rs.QueryParam} of a request to a method argument, 
+ * converting it to the parameter type. Binders are created once for a method, so that no reflection is needed per request.
+ * <p>
+ * Primitives and their wrappers are parsed. Any other type should have a static <code>valueOf(String)</code> method or a 
+ * String constructor, else the value is passed as is. A missing primitive is bound to its default value.
+ */
+abstract class ArgumentBinder {
+
+  private final String pathParam, queryParam;
+  private final Object missing;
+  /**
+   * 
+   * @param pathParam name, or null
+   * @param queryParam name, or null
+   * @param missing value for a missing param
+   */
+  private ArgumentBinder(String pathParam, String queryParam, Object missing) {
+    this.pathParam = pathParam;
+    this.queryParam = queryParam;
+    this.missing = missing;
+  }
+  /**
+   * Convert the param value.
+   * @param value not null
+   * @return converted value, or null if missing
+   * @throws Exception
+   */
+  protected abstract Object convert(String value) throws Exception;
+  /**
+   * The argument from the request params. A query param takes precedence over a path param.
+   * @param request
+   * @return
+   * @throws IllegalArgumentException if the param cannot be converted
+   */
+  Object bind(HttpRequest request)
+  {
+    String value = null;
+    if(queryParam != null)
+      value = request.queryParam(queryParam);
+    if(value == null && pathParam != null)
+      value = WebbitRestServerBean.pathParam(request, pathParam);
+    if(value == null)
+      return missing;
+    try {
+      Object o = convert(value);
+      return o != null ? o : missing;
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Cannot convert param '"+value+"' for "+(queryParam != null ? queryParam : pathParam), e);
+    }
+  }
+  /**
+   * Binder for a method parameter.
+   * @param type parameter type
+   * @param pathParam name, or null
+   * @param queryParam name, or null
+   * @return
+   */
+  static ArgumentBinder forType(Class<?> type, String pathParam, String queryParam)
+  {
+    if(type == String.class || type == Object.class || type == CharSequence.class)
+    {
+      return new ArgumentBinder(pathParam, queryParam, null) {
+        @Override
+        protected Object convert(String value) {
+          return value;
+        }
+      };
+    }
+    if(type == int.class || type == Integer.class)
+    {
+      return new ArgumentBinder(pathParam, queryParam, zero(type, 0)) {
+        @Override
+        protected Object convert(String value) {
+          return Integer.valueOf(value.trim());
+        }
+      };
+    }
+    if(type == long.class || type == Long.class)
+    {
+      return new ArgumentBinder(pathParam, queryParam, zero(type, 0L)) {
+        @Override
+        protected Object convert(String value) {
+          return Long.valueOf(value.trim());
+        }
+      };
+    }
+    if(type == double.class || type == Double.class)
+    {
+      return new ArgumentBinder(pathParam, queryParam, zero(type, 0d)) {
+        @Override
+        protected Object convert(String value) {
+          return Double.valueOf(value.trim());
+        }
+      };
+    }
+    if(type == float.class || type == Float.class)
+    {
+      return new ArgumentBinder(pathParam, queryParam, zero(type, 0f)) {
+        @Override
+        protected Object convert(String value) {
+          return Float.valueOf(value.trim());
+        }
+      };
+    }
+    if(type == boolean.class || type == Boolean.class)
+    {
+      return new ArgumentBinder(pathParam, queryParam, zero(type, false)) {
+        @Override
+        protected Object convert(String value) {
+          return Boolean.valueOf(value.trim());
+        }
+      };
+    }
+    if(type == short.class || type == Short.class)
+    {
+      return new ArgumentBinder(pathParam, queryParam, zero(type, (short) 0)) {
+        @Override
+        protected Object convert(String value) {
+          return Short.valueOf(value.trim());
+        }
+      };
+    }
+    if(type == byte.class || type == Byte.class)
+    {
+      return new ArgumentBinder(pathParam, queryParam, zero(type, (byte) 0)) {
+        @Override
+        protected Object convert(String value) {
+          return Byte.valueOf(value.trim());
+        }
+      };
+    }
+    if(type == char.class || type == Character.class)
+    {
+      return new ArgumentBinder(pathParam, queryParam, zero(type, '\0')) {
+        @Override
+        protected Object convert(String value) {
+          return value.isEmpty() ? null : value.charAt(0);
+        }
+      };
+    }
+    final MethodHandle factory = factoryOf(type);
+    if(factory != null)
+    {
+      return new ArgumentBinder(pathParam, queryParam, null) {
+        @Override
+        protected Object convert(String value) throws Exception {
+          try {
+            return factory.invoke(value);
+          } catch (Exception | Error e) {
+            throw e;
+          } catch (Throwable e) {
+            throw new IllegalArgumentException(e);
+          }
+        }
+      };
+    }
+    return forType(String.class, pathParam, queryParam);
+  }
+  /**
+   * 
+   * @param type
+   * @param zero
+   * @return the zero value for a primitive type, else null
+   */
+  private static Object zero(Class<?> type, Object zero)
+  {
+    return type.isPrimitive() ? zero : null;
+  }
+  /**
+   * A static valueOf(String) method, or a String constructor, as a (String)Object handle.
+   * @param type
+   * @return handle, or null
+   */
+  private static MethodHandle factoryOf(Class<?> type)
+  {
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    try 
+    {
+      java.lang.reflect.Method valueOf = type.getMethod("valueOf", String.class);
+      if(Modifier.isStatic(valueOf.getModifiers()) && type.isAssignableFrom(valueOf.getReturnType()))
+        return lookup.unreflect(valueOf).asType(MethodType.methodType(Object.class, String.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      //try constructor
+    }
+    try {
+      return lookup.findConstructor(type, MethodType.methodType(void.class, String.class)).asType(MethodType.methodType(Object.class, String.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+}
@@ -32,23 +32,41 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.ws.rs.ServiceUnavailableException;
 
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import com.hazelcast.core.EntryEvent;
-import com.reactivetechnologies.platform.OperationsException;
+import com.hazelcast.core.Member;
+import com.reactivetechnologies.platform.datagrid.HzMapConfig;
 import com.reactivetechnologies.platform.datagrid.core.HazelcastClusterServiceBean;
 import com.reactivetechnologies.platform.datagrid.handlers.LocalMapEntryPutListener;
 import com.reactivetechnologies.platform.message.Event;
 import com.reactivetechnologies.platform.rest.rt.AsyncEventMapConfig;
+import com.reactivetechnologies.platform.rest.rt.AsyncPendingMapConfig;
+import com.reactivetechnologies.platform.rest.rt.RouteTree;
 import com.reactivetechnologies.platform.rest.rt.SerializableHttpRequest;
 import com.reactivetechnologies.platform.utils.GsonWrapper;
+import com.reactivetechnologies.platform.utils.PayloadCodec;
 /**
  * Listener class for processing async REST invocations
  */
@@ -65,9 +83,17 @@ public class AsyncEventReceiverBean implements LocalMapEntryPutListener<Event<Se
     
   }
   
-  private final List<MethodInvocationHandler> getHandlers = new ArrayList<>();
-  private final List<MethodInvocationHandler> postHandlers = new ArrayList<>();
-  private final List<MethodInvocationHandler> deleteHandlers = new ArrayList<>();
+  private final RouteTree<MethodInvocationHandler> routes = new RouteTree<>();
+  /**
+   * Route a service method for async requests.
+   * @param httpMethod
+   * @param uriTemplate
+   * @param handler
+   */
+  void addRoute(String httpMethod, String uriTemplate, MethodInvocationHandler handler)
+  {
+    routes.add(httpMethod, uriTemplate, handler);
+  }
   
   /**
    * 
@@ -82,7 +108,7 @@ public class AsyncEventReceiverBean implements LocalMapEntryPutListener<Event<Se
     } catch (IOException e) {
       log.error("Unable to set response ", e);
       putResponse(mapId, "INTERNAL_SERVER_ERROR");
-    } catch (ReflectiveOperationException e) {
+    } catch (ReflectiveOperationException | IllegalArgumentException e) {
       log.error("Exception while invoking service method", e);
       putResponse(mapId, "INTERNAL_SERVER_ERROR");
     }
@@ -93,11 +119,178 @@ public class AsyncEventReceiverBean implements LocalMapEntryPutListener<Event<Se
   @Autowired
   private HazelcastClusterServiceBean hzService;
   
+  @Value("${restserver.async.routing:LOCAL_FIRST}")
+  private AsyncRouting routing;
+  @Value("${restserver.async.localThreads:0}")
+  private int localThreads;
+  @Value("${restserver.async.localMaxPending:0}")
+  private int localMaxPending;
+  
+  private AsyncResponseWaiters waiters;
+  private ExecutorService localExecutor;
+  private ScheduledExecutorService localExpiry;
+  /**
+   * Permits for requests being processed locally, till their response is dispatched, or the pending marker expires.
+   */
+  private Semaphore localPermits;
+  /**
+   * Requests being processed locally, with the task to release their permit on expiry.
+   */
+  private final ConcurrentMap<String, ScheduledFuture<?>> localPending = new ConcurrentHashMap<>();
+  /**
+   * Seconds a request is marked pending in the grid.
+   */
+  private static final int PENDING_TTL_SECS = AsyncPendingMapConfig.class.getAnnotation(HzMapConfig.class).ttlSeconds();
+  private final AtomicInteger spillCount = new AtomicInteger();
+  /**
+   * Max attempts to generate a request key owned by the chosen member.
+   */
+  private static final int MAX_KEY_ATTEMPTS = 64;
+  
   @PostConstruct
   private void init()
   {
     hzService.setMapConfiguration(AsyncEventMapConfig.class);
+    hzService.setMapConfiguration(AsyncPendingMapConfig.class);
     hzService.addLocalEntryListener(this);
+    waiters = new AsyncResponseWaiters(hzService);
+    waiters.start();
+    if(routing == AsyncRouting.LOCAL_FIRST)
+    {
+      int nThreads = localThreads > 0 ? localThreads : Runtime.getRuntime().availableProcessors();
+      localPermits = new Semaphore(localMaxPending > 0 ? localMaxPending : nThreads);
+      localExecutor = Executors.newFixedThreadPool(nThreads, new ThreadFactory() {
+        private int n=0;
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "REST.AsyncLocal-"+(n++));
+          t.setDaemon(true);
+          return t;
+        }
+      });
+      localExpiry = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(r, "REST.AsyncLocalExpiry");
+          t.setDaemon(true);
+          return t;
+        }
+      });
+      log.info("[Async rest] Local first routing with "+nThreads+" thread(s), spilling to grid over "+localPermits.availablePermits()+" pending requests");
+    }
+  }
+  @PreDestroy
+  private void destroy()
+  {
+    waiters.close();
+    if(localExecutor != null)
+    {
+      localExecutor.shutdown();
+      localExpiry.shutdownNow();
+    }
+  }
+  /**
+   * Submit an async request. It is processed on this member if there is capacity, else submitted to the grid.
+   * A locally processed request is marked pending in the grid, so that its response url can be served by any member.
+   * @param request
+   * @param codec for the grid event
+   * @return request key
+   */
+  String submit(final SerializableHttpRequest request, PayloadCodec codec)
+  {
+    if(localPermits != null && localPermits.tryAcquire())
+    {
+      //no event is serialized on the local path, so the key is random
+      final String id = UUID.randomUUID().toString().replace("-", "");
+      localPending.put(id, localExpiry.schedule(new Runnable() {
+        
+        @Override
+        public void run() {
+          if(releaseLocal(id))
+            log.warn("[Async rest] No response for "+id+" in "+PENDING_TTL_SECS+" secs. Releasing its local permit");
+        }
+      }, PENDING_TTL_SECS, TimeUnit.SECONDS));
+      try 
+      {
+        hzService.set(id, Boolean.TRUE, WebbitRestServerBean.ASYNC_REST_PENDING_MAP);
+        localExecutor.execute(new Runnable() {
+          
+          @Override
+          public void run() {
+            doHandle(request, id);
+          }
+        });
+        log.debug("[Async rest] Processing locally "+id);
+        return id;
+      } catch (RejectedExecutionException e) {
+        releaseLocal(id);
+        hzService.removeAsync(id, WebbitRestServerBean.ASYNC_REST_PENDING_MAP);
+      }
+    }
+    Event<SerializableHttpRequest> event = new Event<>(request);
+    event.setCodec(codec);
+    String id = spillKey(event);
+    hzService.set(id, event, WebbitRestServerBean.ASYNC_REST_EVENT_MAP);
+    return id;
+  }
+  /**
+   * Releases the permit of a locally processed request, once.
+   * @param id
+   * @return true if the request was pending locally
+   */
+  private boolean releaseLocal(String id)
+  {
+    ScheduledFuture<?> expiry = localPending.remove(id);
+    if(expiry != null)
+    {
+      expiry.cancel(false);
+      localPermits.release();
+      return true;
+    }
+    return false;
+  }
+  /**
+   * A request key owned by another member chosen round robin, if there is one. The key is regenerated 
+   * till its partition is owned by that member, since partition ownership is decided by the key hash.
+   * @param event
+   * @return
+   */
+  private String spillKey(Event<SerializableHttpRequest> event)
+  {
+    final String base = MethodInvocationHandler.makeAsyncRequestKey(event);
+    if(localPermits == null)
+      return base;
+    Member target = chooseSpillMember();
+    if(target == null)
+      return base;
+    String key = base;
+    for(int i=1; i<MAX_KEY_ATTEMPTS && !target.equals(hzService.getPartitionOwner(key)); i++)
+    {
+      key = base + "-" + i;
+    }
+    return key;
+  }
+  private Member chooseSpillMember()
+  {
+    List<Member> others = new ArrayList<>();
+    for(Member m : hzService.getClusterMembers())
+    {
+      if(!m.localMember())
+        others.add(m);
+    }
+    if(others.isEmpty())
+      return null;
+    return others.get((spillCount.getAndIncrement() & Integer.MAX_VALUE) % others.size());
+  }
+  /**
+   * Wait for a response to be available, instead of polling for it.
+   * @param id
+   * @param waiter
+   * @param timeoutMillis
+   */
+  void awaitResponse(String id, AsyncResponseWaiters.Waiter waiter, long timeoutMillis)
+  {
+    waiters.await(id, waiter, timeoutMillis);
   }
   /**
    * Will be invoked from the {@linkplain DefaultAsyncResponse}.
@@ -131,40 +324,34 @@ public class AsyncEventReceiverBean implements LocalMapEntryPutListener<Event<Se
     
   }
   /**
-   * Check if the message processing is done
-   * @param id
+   * The status code for a response.
+   * @param resp
    * @return
    */
-  synchronized int getResponseCode(String id)
+  static int responseCode(String resp)
   {
-    if(hzService.contains(id, WebbitRestServerBean.ASYNC_REST_EVENT_RESPONSE_MAP))
+    if(resp.contains(WebbitRestServerBean.ASYNC_REST_RESPONSE_PROCESS_ERR))
     {
-      String resp = (String) hzService.get(id, WebbitRestServerBean.ASYNC_REST_EVENT_RESPONSE_MAP);
-      if(resp != null)
+      if(resp.contains(ServiceUnavailableException.class.getName()))
       {
-        if(resp.contains(WebbitRestServerBean.ASYNC_REST_RESPONSE_PROCESS_ERR))
-        {
-          if(resp.contains(ServiceUnavailableException.class.getName()))
-          {
-            return HttpResponseStatus.SERVICE_UNAVAILABLE.getCode();
-          }
-          else
-          {
-            return HttpResponseStatus.INTERNAL_SERVER_ERROR.getCode();
-          }
-        }
-        else
-        {
-          return HttpResponseStatus.OK.getCode();
-        }
+        return HttpResponseStatus.SERVICE_UNAVAILABLE.getCode();
+      }
+      else
+      {
+        return HttpResponseStatus.INTERNAL_SERVER_ERROR.getCode();
       }
-      
-    }
-    if(hzService.contains(id, WebbitRestServerBean.ASYNC_REST_EVENT_MAP))
-    {
-      return HttpResponseStatus.NO_CONTENT.getCode();//response not yet ready
     }
-    return HttpResponseStatus.NOT_FOUND.getCode();
+    return HttpResponseStatus.OK.getCode();
+  }
+  /**
+   * Check if the request is submitted, and the response not yet available.
+   * @param id
+   * @return
+   */
+  boolean isPending(String id)
+  {
+    return localPending.containsKey(id) || hzService.contains(id, WebbitRestServerBean.ASYNC_REST_EVENT_MAP)
+        || hzService.contains(id, WebbitRestServerBean.ASYNC_REST_PENDING_MAP);
   }
   /**
    * Gets the response
@@ -175,69 +362,31 @@ public class AsyncEventReceiverBean implements LocalMapEntryPutListener<Event<Se
   {
     return (String) hzService.get(id, WebbitRestServerBean.ASYNC_REST_EVENT_RESPONSE_MAP);
   }
-  private synchronized void putResponse(String id, String jsonResponse)
+  private void putResponse(String id, String jsonResponse)
   {
     try 
     {
       hzService.put(id, jsonResponse, WebbitRestServerBean.ASYNC_REST_EVENT_RESPONSE_MAP);
-      hzService.remove(id, WebbitRestServerBean.ASYNC_REST_EVENT_MAP);
+      if(localPermits != null && releaseLocal(id))
+        hzService.removeAsync(id, WebbitRestServerBean.ASYNC_REST_PENDING_MAP);
+      else
+        hzService.remove(id, WebbitRestServerBean.ASYNC_REST_EVENT_MAP);
       log.info("Response committed..");
     } catch (Exception e) {
       throw new IllegalArgumentException(id+"", e);
     }
   }
   
-  private Object invokeIfMatch(MethodInvocationHandler handler, SerializableHttpRequest request) throws ReflectiveOperationException, OperationsException
-  {
-    if(handler.getMethod().getUri().matchesTemplate(request.getRequestUri()))
-    {
-      List<Object> args = new ArrayList<>();
-      args.add(new DefaultAsyncResponse(this, request.getImapKey()));
-      args.addAll(request.getArgs());
-      return handler.invokeMethod(args.toArray());
-    }
-    throw new OperationsException("No match found for- "+request.getRequestUri());
-  }
-  
   private Object invokeServiceMethod(SerializableHttpRequest request) throws ReflectiveOperationException
   {
+    RouteTree.Route<MethodInvocationHandler> route = routes.find(request.getRequestMethod(), request.getRequestUri());
+    if(route == null)
+      throw new ReflectiveOperationException(new UnsupportedOperationException(request.getRequestMethod()+" "+request.getRequestUri()));
     
-    switch(request.getRequestMethod())
-    {
-    case "GET":
-      for(MethodInvocationHandler handler : getGetHandlers())
-      {
-        try {
-          return invokeIfMatch(handler, request);
-        } catch (OperationsException e) {
-          continue;
-        }
-      }
-      break;
-    case "POST":
-      for(MethodInvocationHandler handler : getPostHandlers())
-      {
-        try {
-          return invokeIfMatch(handler, request);
-        } catch (OperationsException e) {
-          continue;
-        }
-      }
-      break;
-    case "DELETE":
-      for(MethodInvocationHandler handler : getDeleteHandlers())
-      {
-        try {
-          return invokeIfMatch(handler, request);
-        } catch (OperationsException e) {
-          continue;
-        }
-      }
-      break;
-      default: break;
-        
-    }
-    throw new ReflectiveOperationException(new UnsupportedOperationException(request.getRequestMethod()));
+    List<Object> args = new ArrayList<>();
+    args.add(new DefaultAsyncResponse(this, request.getImapKey()));
+    args.addAll(request.getArgs());
+    return route.getTarget().invokeMethod(args.toArray());
   }
   @Override
   public void entryUpdated(EntryEvent<Serializable, Event<SerializableHttpRequest>> event) {
@@ -248,14 +397,5 @@ public class AsyncEventReceiverBean implements LocalMapEntryPutListener<Event<Se
   public String keyspace() {
     return WebbitRestServerBean.ASYNC_REST_EVENT_MAP;
   }
-  public List<MethodInvocationHandler> getPostHandlers() {
-    return postHandlers;
-  }
-  public List<MethodInvocationHandler> getDeleteHandlers() {
-    return deleteHandlers;
-  }
-  public List<MethodInvocationHandler> getGetHandlers() {
-    return getHandlers;
-  }
 
 }
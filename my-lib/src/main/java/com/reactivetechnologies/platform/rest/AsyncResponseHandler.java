@@ -0,0 +1,272 @@
+/* ============================================================================
+*
+* FILE: AsyncResponseHandler.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.rest;
+
+import java.lang.reflect.Field;
+
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandler;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.webbitserver.EventSourceConnection;
+import org.webbitserver.EventSourceHandler;
+import org.webbitserver.EventSourceMessage;
+import org.webbitserver.HttpControl;
+import org.webbitserver.HttpHandler;
+import org.webbitserver.HttpRequest;
+import org.webbitserver.HttpResponse;
+import org.webbitserver.netty.NettyHttpControl;
+import org.webbitserver.netty.StaleConnectionTrackingHandler;
+/**
+ * Serves the response of an async request, at the 'Location' url returned on submission. The response can be fetched by:
+ * <ul>
+ * <li>polling - responds with 204 (no content) if not yet available</li>
+ * <li>long polling - with a <code>wait</code> query param in millis, the request is held till the response is available
+ * or the wait elapses, in which case it responds with 204</li>
+ * <li>server sent events - with an <code>Accept: text/event-stream</code> header, a single 'response' (or 'error' with the
+ * status code) event is sent once available, and the stream closed. If the max wait elapses the stream is closed, and the 
+ * client may reconnect</li>
+ * </ul>
+ * A held request is exempted from the server's stale connection timeout, as webbit does for event source connections.
+ * Tracking resumes with the next request on the connection.
+ */
+class AsyncResponseHandler implements HttpHandler {
+
+  private static final Logger log = LoggerFactory.getLogger(AsyncResponseHandler.class);
+  static final String WAIT_PARAM = "wait";
+  static final String EVENT_STREAM = "text/event-stream";
+  /**
+   * Pipeline name of the webbit stale connection tracker.
+   */
+  private static final String STALE_CONNECTION_TRACKER = "staleconnectiontracker";
+  private static final Field CONTROL_CONTEXT = controlContext();
+  
+  private static Field controlContext()
+  {
+    try 
+    {
+      Field f = NettyHttpControl.class.getDeclaredField("ctx");
+      f.setAccessible(true);
+      return f;
+    } catch (Exception e) {
+      log.warn("Held requests will be subject to the stale connection timeout- "+e);
+      return null;
+    }
+  }
+  /**
+   * Stops webbit from closing the connection of a held request as stale.
+   * @param control
+   */
+  private static void hold(HttpControl control)
+  {
+    if(CONTROL_CONTEXT == null || !(control instanceof NettyHttpControl))
+      return;
+    try 
+    {
+      Channel channel = ((ChannelHandlerContext) CONTROL_CONTEXT.get(control)).getChannel();
+      ChannelHandler tracker = channel.getPipeline().get(STALE_CONNECTION_TRACKER);
+      if(tracker instanceof StaleConnectionTrackingHandler)
+        ((StaleConnectionTrackingHandler) tracker).stopTracking(channel);
+    } catch (IllegalAccessException e) {
+      log.debug("Unable to stop stale connection tracking", e);
+    }
+  }
+  
+  private final AsyncEventReceiverBean eventReceiver;
+  private final long maxWaitMillis;
+  /**
+   * 
+   * @param eventReceiver
+   * @param maxWaitMillis
+   */
+  AsyncResponseHandler(AsyncEventReceiverBean eventReceiver, long maxWaitMillis) {
+    this.eventReceiver = eventReceiver;
+    this.maxWaitMillis = maxWaitMillis;
+  }
+  
+  @Override
+  public void handleHttpRequest(HttpRequest request, HttpResponse response, HttpControl control) throws Exception 
+  {
+    String key = WebbitRestServerBean.pathParam(request, WebbitRestServerBean.ASYNC_REST_RESPONSE_URI_KEY);
+    log.debug("Got key=> "+key);
+    String accept = request.header("Accept");
+    if(accept != null && accept.contains(EVENT_STREAM))
+    {
+      control.upgradeToEventSourceConnection(new EventStream(key));
+      return;
+    }
+    String json = eventReceiver.getResponse(key);
+    if(json != null)
+    {
+      respond(response, json);
+      return;
+    }
+    if(!eventReceiver.isPending(key))
+    {
+      //the response may have been put after it was checked
+      json = eventReceiver.getResponse(key);
+      if(json != null)
+        respond(response, json);
+      else
+        response.status(HttpResponseStatus.NOT_FOUND.getCode()).end();
+      return;
+    }
+    long wait = waitMillis(request);
+    if(wait > 0)
+    {
+      hold(control);
+      eventReceiver.awaitResponse(key, new LongPoll(response, control), wait);
+    }
+    else
+      response.status(HttpResponseStatus.NO_CONTENT.getCode()).end();//response not yet ready
+  }
+  private long waitMillis(HttpRequest request)
+  {
+    String wait = request.queryParam(WAIT_PARAM);
+    if(wait == null)
+      return 0;
+    try {
+      return Math.min(Long.parseLong(wait.trim()), maxWaitMillis);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+  private void respond(HttpResponse response, String json)
+  {
+    int code = AsyncEventReceiverBean.responseCode(json);
+    if(code == HttpResponseStatus.OK.getCode())
+      response.content(json).end();
+    else
+      response.status(code).end();
+  }
+  /**
+   * A held request, completed on the webbit handler thread.
+   */
+  private class LongPoll implements AsyncResponseWaiters.Waiter
+  {
+    private final HttpResponse response;
+    private final HttpControl control;
+    LongPoll(HttpResponse response, HttpControl control) {
+      this.response = response;
+      this.control = control;
+    }
+    @Override
+    public void onResponse(final String json) {
+      control.execute(new Runnable() {
+        
+        @Override
+        public void run() {
+          respond(response, json);
+        }
+      });
+    }
+    @Override
+    public void onTimeout() {
+      control.execute(new Runnable() {
+        
+        @Override
+        public void run() {
+          response.status(HttpResponseStatus.NO_CONTENT.getCode()).end();
+        }
+      });
+    }
+  }
+  /**
+   * Sends the response as a single event.
+   */
+  private class EventStream implements EventSourceHandler
+  {
+    private final String key;
+    EventStream(String key) {
+      this.key = key;
+    }
+    private void send(final EventSourceConnection connection, final String json)
+    {
+      connection.execute(new Runnable() {
+        
+        @Override
+        public void run() {
+          int code = AsyncEventReceiverBean.responseCode(json);
+          if(code == HttpResponseStatus.OK.getCode())
+            connection.send(new EventSourceMessage(json).event("response"));
+          else
+            connection.send(new EventSourceMessage(String.valueOf(code)).event("error"));
+          connection.close();
+        }
+      });
+    }
+    @Override
+    public void onOpen(final EventSourceConnection connection) throws Exception {
+      String json = eventReceiver.getResponse(key);
+      if(json != null)
+      {
+        send(connection, json);
+        return;
+      }
+      if(!eventReceiver.isPending(key))
+      {
+        //the response may have been put after it was checked
+        json = eventReceiver.getResponse(key);
+        if(json != null)
+        {
+          send(connection, json);
+          return;
+        }
+        connection.send(new EventSourceMessage(String.valueOf(HttpResponseStatus.NOT_FOUND.getCode())).event("error"));
+        connection.close();
+        return;
+      }
+      eventReceiver.awaitResponse(key, new AsyncResponseWaiters.Waiter() {
+        
+        @Override
+        public void onResponse(String response) {
+          send(connection, response);
+        }
+        
+        @Override
+        public void onTimeout() {
+          connection.execute(new Runnable() {
+            
+            @Override
+            public void run() {
+              connection.close();
+            }
+          });
+        }
+      }, maxWaitMillis);
+    }
+
+    @Override
+    public void onClose(EventSourceConnection connection) throws Exception {
+      //the waiter, if any, expires on its timeout
+    }
+  }
+}
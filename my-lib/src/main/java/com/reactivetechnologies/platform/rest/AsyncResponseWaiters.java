@@ -0,0 +1,240 @@
+/* ============================================================================
+*
+* FILE: AsyncResponseWaiters.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.rest;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.EntryEvent;
+import com.reactivetechnologies.platform.datagrid.core.HazelcastClusterServiceBean;
+import com.reactivetechnologies.platform.datagrid.handlers.LocalMapEntryPutListener;
+/**
+ * Parks requests waiting for an async response, and completes them when the response is put. Responses
+ * are notified by a single cluster wide listener on the response map, registered on {@link #start()}, so
+ * parking a request makes no cluster call other than a check for the response.
+ */
+class AsyncResponseWaiters implements LocalMapEntryPutListener<String> {
+
+  private static final Logger log = LoggerFactory.getLogger(AsyncResponseWaiters.class);
+  /**
+   * Callback for a waiting request. Only one of the methods will be invoked, once.
+   */
+  interface Waiter
+  {
+    /**
+     * The response is available.
+     * @param response
+     */
+    void onResponse(String response);
+    /**
+     * The wait timed out.
+     */
+    void onTimeout();
+  }
+  /**
+   * Waiters on a key. Once closed, it is no longer mapped and a new holder is needed for the key.
+   */
+  private static class Waiters
+  {
+    final List<OnceWaiter> list = new ArrayList<>();
+    boolean closed;
+  }
+  /**
+   * Ensures a single callback.
+   */
+  private class OnceWaiter implements Runnable
+  {
+    private final String id;
+    private final Waiter waiter;
+    private final AtomicBoolean done = new AtomicBoolean();
+    private volatile ScheduledFuture<?> timeout;
+    OnceWaiter(String id, Waiter waiter) {
+      this.id = id;
+      this.waiter = waiter;
+    }
+    void complete(String response)
+    {
+      if(done.compareAndSet(false, true))
+      {
+        ScheduledFuture<?> f = timeout;
+        if(f != null)
+          f.cancel(false);
+        waiter.onResponse(response);
+      }
+    }
+    /**
+     * Timeout. The response is checked once more, in case it was put on a member whose notification got missed.
+     */
+    @Override
+    public void run() {
+      remove(this);
+      if(done.compareAndSet(false, true))
+      {
+        String response = (String) hzService.get(id, keyspace());
+        if(response != null)
+          waiter.onResponse(response);
+        else
+          waiter.onTimeout();
+      }
+    }
+  }
+  
+  private final HazelcastClusterServiceBean hzService;
+  private final ConcurrentMap<String, Waiters> waiters = new ConcurrentHashMap<>();
+  private String registrationId;
+  private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+    
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "REST.AsyncWaitTimer");
+      t.setDaemon(true);
+      return t;
+    }
+  });
+  /**
+   * 
+   * @param hzService
+   */
+  AsyncResponseWaiters(HazelcastClusterServiceBean hzService) {
+    this.hzService = hzService;
+  }
+  /**
+   * Register the response map listener.
+   */
+  void start()
+  {
+    registrationId = hzService.addEntryListener(keyspace(), this);
+  }
+  /**
+   * Wait for the response of a request.
+   * @param id request key
+   * @param waiter
+   * @param timeoutMillis
+   */
+  void await(String id, Waiter waiter, long timeoutMillis)
+  {
+    OnceWaiter w = new OnceWaiter(id, waiter);
+    Waiters ws;
+    while(true)
+    {
+      ws = waiters.get(id);
+      if(ws == null)
+      {
+        Waiters ws0 = new Waiters();
+        ws = waiters.putIfAbsent(id, ws0);
+        if(ws == null)
+          ws = ws0;
+      }
+      synchronized (ws) 
+      {
+        if(!ws.closed)
+        {
+          ws.list.add(w);
+          break;
+        }
+      }
+    }
+    w.timeout = timer.schedule(w, timeoutMillis, TimeUnit.MILLISECONDS);
+    if(w.done.get())
+      w.timeout.cancel(false);
+    //the response may have been put before the waiter was added
+    String response = (String) hzService.get(id, keyspace());
+    if(response != null)
+      complete(id, response);
+  }
+  private void remove(OnceWaiter w)
+  {
+    Waiters ws = waiters.get(w.id);
+    if(ws == null)
+      return;
+    boolean last = false;
+    synchronized (ws) 
+    {
+      if(ws.list.remove(w) && ws.list.isEmpty() && !ws.closed)
+      {
+        ws.closed = true;
+        last = true;
+      }
+    }
+    if(last)
+      waiters.remove(w.id, ws);
+  }
+  private void complete(String id, String response)
+  {
+    Waiters ws = waiters.remove(id);
+    if(ws == null)
+      return;
+    List<OnceWaiter> list;
+    synchronized (ws) 
+    {
+      ws.closed = true;
+      list = new ArrayList<>(ws.list);
+    }
+    log.debug("Completing "+list.size()+" waiting request(s) for key "+id);
+    for(OnceWaiter w : list)
+    {
+      w.complete(response);
+    }
+  }
+  @Override
+  public void entryAdded(EntryEvent<Serializable, String> event) {
+    complete(event.getKey().toString(), event.getValue());
+  }
+
+  @Override
+  public void entryUpdated(EntryEvent<Serializable, String> event) {
+    complete(event.getKey().toString(), event.getValue());
+  }
+
+  @Override
+  public String keyspace() {
+    return WebbitRestServerBean.ASYNC_REST_EVENT_RESPONSE_MAP;
+  }
+  /**
+   * Remove the listener and stop the timer. Pending waiters are not notified.
+   */
+  void close()
+  {
+    if(registrationId != null)
+      hzService.removeEntryListener(keyspace(), registrationId);
+    timer.shutdownNow();
+  }
+}
@@ -0,0 +1,135 @@
+/* ============================================================================
+*
+* FILE: JsonResponseWriter.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.rest;
+
+import java.io.Writer;
+
+import org.webbitserver.HttpResponse;
+/**
+ * Writes the JSON of a response as it is generated. A content up to the chunk size is sent as a single 
+ * response, else the response is switched to chunked transfer and every filled buffer is written as a chunk.
+ * Not thread safe.
+ */
+class JsonResponseWriter extends Writer {
+
+  /**
+   * Default chunk size, in characters.
+   */
+  static final int DEFAULT_CHUNK_SIZE = 8192;
+  
+  private final HttpResponse response;
+  private final char[] buffer;
+  private int count = 0;
+  private boolean chunked = false;
+  /**
+   * 
+   * @param response
+   * @param chunkSize
+   */
+  JsonResponseWriter(HttpResponse response, int chunkSize) {
+    this.response = response;
+    this.buffer = new char[chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE];
+  }
+  /**
+   * If the response has been switched to chunked, and so its headers have been sent.
+   * @return
+   */
+  boolean isChunked()
+  {
+    return chunked;
+  }
+  private void writeChunk()
+  {
+    if(!chunked)
+    {
+      response.chunked();
+      chunked = true;
+    }
+    response.write(new String(buffer, 0, count));
+    count = 0;
+  }
+  @Override
+  public void write(int c) {
+    if(count == buffer.length)
+      writeChunk();
+    buffer[count++] = (char) c;
+  }
+  @Override
+  public void write(char[] cbuf, int off, int len) {
+    while(len > 0)
+    {
+      if(count == buffer.length)
+        writeChunk();
+      int n = Math.min(len, buffer.length - count);
+      System.arraycopy(cbuf, off, buffer, count, n);
+      count += n;
+      off += n;
+      len -= n;
+    }
+  }
+  @Override
+  public void write(String str) {
+    write(str, 0, str.length());
+  }
+  @Override
+  public void write(String str, int off, int len) {
+    while(len > 0)
+    {
+      if(count == buffer.length)
+        writeChunk();
+      int n = Math.min(len, buffer.length - count);
+      str.getChars(off, off + n, buffer, count);
+      count += n;
+      off += n;
+      len -= n;
+    }
+  }
+  /**
+   * Noop. The content is written when filled, or on close.
+   */
+  @Override
+  public void flush() {
+    
+  }
+  /**
+   * Writes any pending content and ends the response.
+   */
+  @Override
+  public void close() {
+    if(chunked)
+    {
+      if(count > 0)
+        writeChunk();
+      response.end();
+    }
+    else
+      response.content(new String(buffer, 0, count)).end();
+  }
+
+}
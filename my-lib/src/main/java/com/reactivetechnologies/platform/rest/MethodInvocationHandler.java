@@ -28,11 +28,18 @@ SOFTWARE.
 */
 package com.reactivetechnologies.platform.rest;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Map.Entry;
 
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
@@ -41,21 +48,18 @@ import javax.ws.rs.container.AsyncResponse;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.util.StringUtils;
 import org.webbitserver.HttpControl;
 import org.webbitserver.HttpHandler;
 import org.webbitserver.HttpRequest;
 import org.webbitserver.HttpResponse;
-import org.webbitserver.rest.Rest;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
-import com.reactivetechnologies.platform.SpringContext;
-import com.reactivetechnologies.platform.datagrid.core.HazelcastClusterServiceBean;
+import com.google.gson.JsonParseException;
 import com.reactivetechnologies.platform.message.Event;
 import com.reactivetechnologies.platform.rest.rt.MethodDetail;
 import com.reactivetechnologies.platform.rest.rt.SerializableHttpRequest;
 import com.reactivetechnologies.platform.utils.Digestor;
+import com.reactivetechnologies.platform.utils.GsonWrapper;
+import com.reactivetechnologies.platform.utils.PayloadCodec;
 /**
  * Request dispatcher to JAX-RS service classes. 
  * Accepts {@linkplain PathParam} and {@linkplain QueryParam} parameters, or a single JSON body.
@@ -67,11 +71,38 @@ class MethodInvocationHandler implements HttpHandler {
   }
   private final Object instance;
   private static final Logger log = LoggerFactory.getLogger(MethodInvocationHandler.class);
-  private Gson gson;
-  
-  public void setGson(Gson gson) {
+  private GsonWrapper gson;
+  /**
+   * Gson is resolved per request, so that type adapters registered on startup are used.
+   * @param gson
+   */
+  public void setGson(GsonWrapper gson) {
     this.gson = gson;
   }
+  private int chunkSize = JsonResponseWriter.DEFAULT_CHUNK_SIZE;
+  /**
+   * Responses larger than this many characters are sent chunked.
+   * @param chunkSize
+   */
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+  private AsyncEventReceiverBean eventReceiver;
+  /**
+   * Receiver to submit async requests to.
+   * @param eventReceiver
+   */
+  public void setEventReceiver(AsyncEventReceiverBean eventReceiver) {
+    this.eventReceiver = eventReceiver;
+  }
+  private PayloadCodec eventCodec = PayloadCodec.NONE;
+  /**
+   * Codec for the async request events submitted to the grid.
+   * @param eventCodec
+   */
+  public void setEventCodec(PayloadCodec eventCodec) {
+    this.eventCodec = eventCodec;
+  }
   /**
    * New {@linkplain HttpHandler} for REST request interception
    * @param method
@@ -80,8 +111,67 @@ class MethodInvocationHandler implements HttpHandler {
   public MethodInvocationHandler(MethodDetail method, Object instance) {
     this.method = method;
     this.instance = instance;
+    Class<?>[] types = method.getM().getParameterTypes();
+    argOffset = method.isAsyncRest() ? 1 : 0;
+    binders = new ArgumentBinder[types.length - argOffset];
+    for(int i=0; i<binders.length; i++)
+    {
+      int p = i + argOffset;
+      binders[i] = ArgumentBinder.forType(types[p], method.getpParams().get(p), method.getqParams().get(p));
+    }
+    asyncParam = types.length > 0 && types[0] == AsyncResponse.class;
+    bodyType = binders.length > 0 ? types[argOffset] : null;
+    paramTypes = types;
+    boxedTypes = new Class<?>[types.length];
+    for(int i=0; i<types.length; i++)
+    {
+      boxedTypes[i] = MethodType.methodType(types[i]).wrap().returnType();
+    }
+    handle = methodHandle(method.getM(), instance);
     log.debug(identifier() + " instantiated..");
   }
+  /**
+   * Binders for the (non AsyncResponse) method parameters, from the request params.
+   */
+  private final ArgumentBinder[] binders;
+  private final int argOffset;
+  /**
+   * If the first parameter is an {@linkplain AsyncResponse}.
+   */
+  private final boolean asyncParam;
+  /**
+   * The parameter a request body is bound to, or null if there is none.
+   */
+  private final Class<?> bodyType;
+  /**
+   * Parameter types, and their wrappers, for checking arguments as reflective invocation does.
+   */
+  private final Class<?>[] paramTypes, boxedTypes;
+  /**
+   * The method bound to the instance, as a (Object[])Object handle.
+   */
+  private final MethodHandle handle;
+  /**
+   * 
+   * @param m
+   * @param instance
+   * @return
+   */
+  private static MethodHandle methodHandle(Method m, Object instance)
+  {
+    try 
+    {
+      if(!m.isAccessible())
+        m.setAccessible(true);
+      MethodHandle mh = MethodHandles.lookup().unreflect(m);
+      if(!Modifier.isStatic(m.getModifiers()))
+        mh = mh.bindTo(instance);
+      return mh.asSpreader(Object[].class, m.getParameterTypes().length)
+          .asType(MethodType.methodType(Object.class, Object[].class));
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("Cannot access method "+m, e);
+    }
+  }
   /**
    * for debug logging
    * @return
@@ -93,91 +183,87 @@ class MethodInvocationHandler implements HttpHandler {
   /**
    * From body content
    * @param args
-   * @param jsonBody
+   * @param jsonBody UTF-8 bytes
    * @param isAsyncRequest
    */
-  private void extractArgumentsFromBody(final List<Object> args, String jsonBody, boolean isAsyncRequest)
+  private Object[] extractArgumentsFromBody(byte[] jsonBody, boolean isAsyncRequest)
   {
     //this should be a POSTed JSON content
     //for async request, the first parameter should be AsyncResponse
+    if(isAsyncRequest && !asyncParam)
+    {
+      throw new IllegalArgumentException(
+          "Expected first argument to be of AsyncResponse type for "
+              + method.getM());
+    }
+    if(bodyType == null)
+    {
+      throw new IllegalArgumentException("No argument to bind request body for "+ method.getM());
+    }
     try 
     {
-      Class<?> argTyp;
-      if(isAsyncRequest)
-      {
-        if (method.getM().getParameterTypes()[0] != AsyncResponse.class) {
-          throw new IllegalArgumentException(
-              "Expected first argument to be of AsyncResponse type for "
-                  + method.getM());
-        }
-        argTyp = method.getM().getParameterTypes()[1];
-      }
-      else
-        argTyp = method.getM().getParameterTypes()[0];
-        
-      try 
-      {
-        args.add(gson.fromJson(jsonBody, argTyp));
-      } catch (JsonSyntaxException e) {
-        throw new IllegalArgumentException(
-            "Unable to parse request body as json for "
-                + method.getM(), e);
-      }
-    } catch (Exception e) {
-      throw e;
+      //parsed as a stream, without decoding the body to a string first
+      return new Object[]{gson.get().fromJson(new InputStreamReader(new ByteArrayInputStream(jsonBody), StandardCharsets.UTF_8), bodyType)};
+    } catch (JsonParseException e) {
+      throw new IllegalArgumentException(
+          "Unable to parse request body as json for "
+              + method.getM(), e);
     }
   }
   /**
-   * From params
-   * @param args
+   * From params. A query param replaces any matching path param.
    * @param request
+   * @return
    */
-  private void extractArgumentsFromParams(List<Object> args, HttpRequest request)
+  private Object[] extractArgumentsFromParams(HttpRequest request)
   {
-    //set value from path params
-    for(Entry<Integer, String> entry : method.getpParams().entrySet())
+    Object[] args = new Object[binders.length];
+    for(int i=0; i<binders.length; i++)
     {
-      args.add(entry.getKey(), Rest.param(request, entry.getValue()));
-    }
-    //set value from query params
-    for(Entry<Integer, String> entry : method.getqParams().entrySet())
-    {
-      if(args.size() > entry.getKey() && args.get(entry.getKey()) != null)
-      {
-        //replaces any matching path param!
-        args.set(entry.getKey(), request.queryParam(entry.getValue()));
-        
-      }
-      else
-        args.add(entry.getKey(), request.queryParam(entry.getValue()));
+      args[i] = binders[i].bind(request);
     }
+    return args;
   }
   /**
-   * Extract method arguments from query parameters
+   * Extract method arguments from the body or request parameters. For async requests, the 
+   * {@linkplain AsyncResponse} argument is not included.
    * @param request
+   * @param async
    * @return
    * @throws IOException
    */
-  private List<Object> extractArguments(HttpRequest request, boolean async) throws IOException
+  private Object[] extractArguments(HttpRequest request, boolean async) throws IOException
   {
-    final List<Object> args = new ArrayList<>();
-    String reqBody =  request.body();   
-    if(StringUtils.hasText(reqBody))
+    byte[] reqBody =  request.bodyAsBytes();   
+    if(hasContent(reqBody))
     {
       try 
       {
-        extractArgumentsFromBody(args, reqBody, async);
+        return extractArgumentsFromBody(reqBody, async);
       } 
       catch (Exception e) {
         throw new IOException(identifier()+"Cannot find a method with single object argument for POST request ["+request.uri()+"]", e);  
       }
           
     }
-    else
+    return extractArgumentsFromParams(request);
+  }
+  /**
+   * If there is any non whitespace content.
+   * @param body
+   * @return
+   */
+  private static boolean hasContent(byte[] body)
+  {
+    if(body != null)
     {
-      extractArgumentsFromParams(args, request);
+      for(byte b : body)
+      {
+        if(b < 0 || b > ' ')
+          return true;
+      }
     }
-    return args;
+    return false;
   }
   @Override
   public void handleHttpRequest(HttpRequest request, HttpResponse response, HttpControl control) throws Exception {
@@ -188,7 +274,7 @@ class MethodInvocationHandler implements HttpHandler {
       return;
     }
     
-    List<Object> args = extractArguments(request, false);
+    Object[] args = extractArguments(request, false);
     prepareResponse(args, response);
     
   }
@@ -200,37 +286,60 @@ class MethodInvocationHandler implements HttpHandler {
    */
   private void prepareAsyncResponse(HttpRequest request, HttpResponse response) throws IOException 
   {
-    HazelcastClusterServiceBean hzService = SpringContext.getBean(HazelcastClusterServiceBean.class);
-    
     SerializableHttpRequest serReq = new SerializableHttpRequest();
     
-    serReq.getArgs().addAll(extractArguments(request, true));
+    serReq.getArgs().addAll(Arrays.asList(extractArguments(request, true)));
     serReq.setRequestMethod(request.method());
     serReq.setRequestUri(request.uri());
     
-    Event<SerializableHttpRequest> event = new Event<>(serReq);
-    String requestKey = makeAsyncRequestKey(event);
+    String requestKey = eventReceiver.submit(serReq, eventCodec);
         
     String redirectUrl = WebbitRestServerBean.ASYNC_REST_RESPONSE_URI+requestKey;
      
-    hzService.set(requestKey, event, WebbitRestServerBean.ASYNC_REST_EVENT_MAP);
     response.header("Location", redirectUrl).status(HttpResponseStatus.ACCEPTED.getCode()).end();
     
     log.info("[Async rest] Request submitted with redirect url: "+redirectUrl);
   }
   
-  private void prepareResponse(List<Object> args, HttpResponse response) throws Exception
+  private void prepareResponse(Object[] args, HttpResponse response) throws Exception
+  {
+    Object returned = invokeMethod(args);
+    //the json is written as it is serialized, chunked if large
+    JsonResponseWriter writer = new JsonResponseWriter(response, chunkSize);
+    try 
+    {
+      gson.get().toJson(returned, writer);
+    } catch (RuntimeException | Error e) {
+      //nothing has been sent yet, so an error response can still be sent
+      if(!writer.isChunked())
+        throw e;
+      //the headers are already sent, so the response can only be ended
+      log.error(identifier()+" Serialization failed after the response was committed. Ending a truncated response", e);
+    }
+    writer.close();
+    log.debug(identifier()+" Response written");
+  }
+  /**
+   * Checks the arguments against the parameter types, so that any exception on invocation is from the method.
+   * @param args
+   * @throws IllegalArgumentException on a wrong number or type of arguments, as with reflective invocation
+   */
+  private void checkArguments(Object[] args)
   {
-    Object returned = invokeMethod(args.toArray());
-    String json = gson.toJson(returned);
-    log.debug(identifier()+" Response=> "+json);
-    response.content(json).end();
+    if(args.length != paramTypes.length)
+      throw new IllegalArgumentException("wrong number of arguments for "+method.getM());
+    for(int i=0; i<args.length; i++)
+    {
+      if(args[i] == null ? paramTypes[i].isPrimitive() : !boxedTypes[i].isInstance(args[i]))
+        throw new IllegalArgumentException("argument type mismatch at index "+i+" for "+method.getM());
+    }
   }
   /**
    * Invoke service method
    * @param args
    * @return
    * @throws ReflectiveOperationException
+   * @throws IllegalArgumentException on a wrong number or type of arguments
    */
   protected Object invokeMethod(Object... args) throws ReflectiveOperationException
   {
@@ -239,7 +348,16 @@ class MethodInvocationHandler implements HttpHandler {
           identifier()+"Invoking method=> " + method + " on instance=> " + instance + ".");
       log.debug(identifier()+"Passed parameters=> " + Arrays.toString(args));
     }
-    return method.getM().invoke(instance, args);
+    checkArguments(args);
+    try 
+    {
+      return (Object) handle.invokeExact(args);
+    } catch (WrongMethodTypeException e) {
+      throw new IllegalArgumentException(e);
+    } catch (Throwable e) {
+      //as with reflective invocation
+      throw new InvocationTargetException(e);
+    }
   }
   
   /**
@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -45,12 +46,12 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
 
-import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanInitializationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.NestedIOException;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.ReflectionUtils;
@@ -61,16 +62,18 @@ import org.webbitserver.HttpHandler;
 import org.webbitserver.HttpRequest;
 import org.webbitserver.HttpResponse;
 import org.webbitserver.netty.NettyWebServer;
-import org.webbitserver.rest.Rest;
 
 import com.reactivetechnologies.platform.datagrid.HzMapConfig;
 import com.reactivetechnologies.platform.rest.rt.AsyncEventMapConfig;
+import com.reactivetechnologies.platform.rest.rt.AsyncPendingMapConfig;
 import com.reactivetechnologies.platform.rest.rt.AsyncResponseMapConfig;
 import com.reactivetechnologies.platform.rest.rt.JAXRSInstanceMetadata;
 import com.reactivetechnologies.platform.rest.rt.MethodDetail;
+import com.reactivetechnologies.platform.rest.rt.RouteTree;
 import com.reactivetechnologies.platform.rest.rt.Serveable;
 import com.reactivetechnologies.platform.utils.EntityFinder;
 import com.reactivetechnologies.platform.utils.GsonWrapper;
+import com.reactivetechnologies.platform.utils.PayloadCodec;
 /**
  * Simple REST server using {@link NettyWebServer Webbit} library, consuming and producing JSON messages.
  */
@@ -79,7 +82,38 @@ public class WebbitRestServerBean implements Serveable{
   private static final Logger log = LoggerFactory.getLogger(WebbitRestServerBean.class);
   private String annotatedPkgToScan;
   private NettyWebServer server;
-  private Rest restWrapper;
+  private final RouteTree<HttpHandler> routes = new RouteTree<>();
+  static final String PATH_PARAMS = "PATH_PARAMS";
+  /**
+   * Dispatches a request to the handler of its route, with the path params captured. There is a single
+   * dispatcher for all routes, instead of a handler per route trying to match the URI in turn.
+   */
+  private final HttpHandler dispatcher = new HttpHandler() {
+    
+    @Override
+    public void handleHttpRequest(HttpRequest request, HttpResponse response, HttpControl control) throws Exception {
+      RouteTree.Route<HttpHandler> route = routes.find(request.method(), request.uri());
+      if(route == null)
+      {
+        control.nextHandler();
+        return;
+      }
+      request.data(PATH_PARAMS, route.getPathParams());
+      route.getTarget().handleHttpRequest(request, response, control);
+    }
+  };
+  /**
+   * Gets a path param captured by the dispatcher.
+   * @param request
+   * @param name
+   * @return
+   */
+  @SuppressWarnings("unchecked")
+  static String pathParam(HttpRequest request, String name)
+  {
+    Map<String, String> params = (Map<String, String>) request.data(PATH_PARAMS);
+    return params != null ? params.get(name) : null;
+  }
   
   /**
    * Instantiate a REST server
@@ -106,11 +140,17 @@ public class WebbitRestServerBean implements Serveable{
         
       }
     });
-    restWrapper = new Rest(server);
+    server.add(dispatcher);
         
   }
   @Autowired
   private GsonWrapper gsonWrapper;
+  @Value("${restserver.async.codec:NONE}")
+  private PayloadCodec asyncCodec;
+  @Value("${restserver.response.chunkSize:8192}")
+  private int chunkSize;
+  @Value("${restserver.async.maxWaitMillis:30000}")
+  private long asyncMaxWait;
   /**
    * 
    * @param meta
@@ -118,27 +158,33 @@ public class WebbitRestServerBean implements Serveable{
   private void defineRoute(JAXRSInstanceMetadata meta) {
     for(MethodDetail m : meta.getDogetMethods())
     {
-      MethodInvocationHandler rh = new MethodInvocationHandler(m, meta.getJaxrsObject());
-      rh.setGson(gsonWrapper.get());
-      restWrapper.GET(m.getUri().getRawUri(), rh);
-      eventReceiver.getGetHandlers().add(rh);
+      defineRoute("GET", m, meta.getJaxrsObject());
     }
     for(MethodDetail m : meta.getDopostMethods())
     {
-      MethodInvocationHandler rh = new MethodInvocationHandler(m, meta.getJaxrsObject());
-      rh.setGson(gsonWrapper.get());
-      restWrapper.POST(m.getUri().getRawUri(), rh);
-      eventReceiver.getPostHandlers().add(rh);
+      defineRoute("POST", m, meta.getJaxrsObject());
     }
     for(MethodDetail m : meta.getDodelMethods())
     {
-      MethodInvocationHandler rh = new MethodInvocationHandler(m, meta.getJaxrsObject());
-      rh.setGson(gsonWrapper.get());
-      restWrapper.DELETE(m.getUri().getRawUri(), rh);
-      eventReceiver.getDeleteHandlers().add(rh);
+      defineRoute("DELETE", m, meta.getJaxrsObject());
     }
     
   }
+  /**
+   * Route the method for both sync and async requests.
+   * @param httpMethod
+   * @param m
+   * @param instance
+   */
+  private void defineRoute(String httpMethod, MethodDetail m, Object instance) {
+    MethodInvocationHandler rh = new MethodInvocationHandler(m, instance);
+    rh.setGson(gsonWrapper);
+    rh.setEventCodec(asyncCodec);
+    rh.setEventReceiver(eventReceiver);
+    rh.setChunkSize(chunkSize);
+    routes.add(httpMethod, m.getUri().getRawUri(), rh);
+    eventReceiver.addRoute(httpMethod, m.getUri().getRawUri(), rh);
+  }
   /**
    * 
    * @param method
@@ -249,27 +295,7 @@ public class WebbitRestServerBean implements Serveable{
   @PostConstruct
   private void defineRoutes() {
     
-    restWrapper.GET(ASYNC_REST_RESPONSE_URI+"{"+ASYNC_REST_RESPONSE_URI_KEY+"}", new HttpHandler() {
-      
-      @Override
-      public void handleHttpRequest(HttpRequest request, HttpResponse response, HttpControl control) throws Exception 
-      {
-        String key = Rest.param(request, WebbitRestServerBean.ASYNC_REST_RESPONSE_URI_KEY);
-        log.debug("Got key=> "+key);
-        int code = eventReceiver.getResponseCode(key);
-        if(code == HttpResponseStatus.OK.getCode())
-        {
-          String json = eventReceiver.getResponse(key);
-          if(json != null)
-            response.content(json).end();
-          else
-            response.status(HttpResponseStatus.GONE.getCode()).end();//gone
-        }
-        else
-          response.status(code).end();
-        
-      }
-    });
+    routes.add("GET", ASYNC_REST_RESPONSE_URI+"{"+ASYNC_REST_RESPONSE_URI_KEY+"}", new AsyncResponseHandler(eventReceiver, asyncMaxWait));
     
     log.info("[REST Listener] Scanning for JAX-RS annotated classes.. ");
     try 
@@ -293,6 +319,7 @@ public class WebbitRestServerBean implements Serveable{
   
   public static final String ASYNC_REST_EVENT_MAP = AnnotationUtils.findAnnotation(AsyncEventMapConfig.class, HzMapConfig.class).name();
   public static final String ASYNC_REST_EVENT_RESPONSE_MAP = AnnotationUtils.findAnnotation(AsyncResponseMapConfig.class, HzMapConfig.class).name();
+  public static final String ASYNC_REST_PENDING_MAP = AnnotationUtils.findAnnotation(AsyncPendingMapConfig.class, HzMapConfig.class).name();
   public static final String ASYNC_REST_RESPONSE_URI = "/async/key/";
   public static final String ASYNC_REST_RESPONSE_URI_KEY = "requestKey";
   public static final String ASYNC_REST_RESPONSE_PROCESS_ERR = "--<PROCESS ERROR>--";
@@ -74,10 +74,16 @@ public class AsyncClientHandler implements Runnable
       notify();
     }
   }
+  /**
+   * Max time in millis the server is asked to hold a request for the response to be available. 
+   * The server may cap it to a smaller wait.
+   */
+  static final long LONG_POLL_WAIT_MILLIS = 30000;
   private final SynchronousQueue<String> queue = new SynchronousQueue<>();
   private volatile boolean cancelled;
   /**
-   * 
+   * Long polls the url till the response is available. Each request is held by the server
+   * till the response is ready, or the wait elapses (204) in which case it is reissued.
    * @param url
    * @return
    * @throws IOException
@@ -89,7 +95,7 @@ public class AsyncClientHandler implements Runnable
     BufferedReader in = null;
     int responseCode = HttpURLConnection.HTTP_NO_CONTENT;
     String responseString = null;
-    URL obj = new URL(url);
+    URL obj = new URL(url + (url.contains("?") ? "&" : "?") + "wait=" + LONG_POLL_WAIT_MILLIS);
     do 
     {
       try 
@@ -104,6 +110,7 @@ public class AsyncClientHandler implements Runnable
 
         // optional default is GET
         con.setRequestMethod("GET");
+        con.setReadTimeout((int) (LONG_POLL_WAIT_MILLIS * 2));
         con.setRequestProperty("Connection", "keep-alive");
         //add request header
         con.setRequestProperty("User-Agent", "Mozilla/5.0");
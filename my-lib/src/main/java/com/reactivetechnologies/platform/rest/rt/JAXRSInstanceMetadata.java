@@ -71,14 +71,12 @@ public class JAXRSInstanceMetadata implements RequestDispatcher {
     
   }
   
-  private static MethodDetail findMethodForUri(String uri, List<MethodDetail> methods)
+  private final RouteTree<MethodDetail> routes = new RouteTree<>();
+  
+  private MethodDetail findMethodForUri(String uri, String method)
   {
-    for(MethodDetail m : methods)
-    {
-      if(m.getUri().matchesTemplate(uri))
-        return m;
-    }
-    return null;
+    RouteTree.Route<MethodDetail> route = routes.find(method, uri);
+    return route != null ? route.getTarget() : null;
   }
   
   public String getRootUri() {
@@ -93,7 +91,7 @@ public class JAXRSInstanceMetadata implements RequestDispatcher {
   @Override
   public Object invokePostUrl(String uri, Map<String, String> params,
       Object requestBody) throws IllegalAccessException {
-    MethodDetail m = findMethodForUri(uri, dopostMethods);
+    MethodDetail m = findMethodForUri(uri, "POST");
     if(m == null)
     {
       throw new IllegalAccessException("Mapping not found");
@@ -104,16 +102,16 @@ public class JAXRSInstanceMetadata implements RequestDispatcher {
   
   public MethodDetail findGetMethodForUri(String uri)
   {
-    return findMethodForUri(uri, dogetMethods);
+    return findMethodForUri(uri, "GET");
   }
   public MethodDetail findPostMethodForUri(String uri)
   {
-    return findMethodForUri(uri, dopostMethods);
+    return findMethodForUri(uri, "POST");
   }
 
   @Override
   public Object invokeGetUrl(String uri, Map<String, String> params) throws IllegalAccessException {
-    MethodDetail m = findMethodForUri(uri, dogetMethods);
+    MethodDetail m = findMethodForUri(uri, "GET");
     if(m == null)
     {
       throw new IllegalAccessException("Mapping not found");
@@ -140,6 +138,7 @@ public class JAXRSInstanceMetadata implements RequestDispatcher {
   public void addGetMethod(String uri, MethodDetail m) {
     m.setUri(new URIDetail(uri));
     dogetMethods.add(m);
+    routes.add("GET", uri, m);
     log.info("Mapped: GET "+uri+" to "+m.getM());
   }
 
@@ -147,20 +146,22 @@ public class JAXRSInstanceMetadata implements RequestDispatcher {
   public void addPostMethod(String uri, MethodDetail m) {
     m.setUri(new URIDetail(uri));
     dopostMethods.add(m);
+    routes.add("POST", uri, m);
     log.info("Mapped: POST "+uri+" to "+m.getM());
   }
   public void addDelMethod(String uri, MethodDetail m) {
     m.setUri(new URIDetail(uri));
     dodelMethods.add(m);
+    routes.add("DELETE", uri, m);
     log.info("Mapped: DELETE "+uri+" to "+m.getM());
   }
 
   public boolean matchesPost(String uri) {
-    return findMethodForUri(uri, dopostMethods) != null;
+    return findMethodForUri(uri, "POST") != null;
   }
 
   public boolean matchesGet(String uri) {
-    return findMethodForUri(uri, dogetMethods) != null;
+    return findMethodForUri(uri, "GET") != null;
   }
 
   
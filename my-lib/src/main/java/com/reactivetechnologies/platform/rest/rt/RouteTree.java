@@ -0,0 +1,227 @@
+/* ============================================================================
+*
+* FILE: RouteTree.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.rest.rt;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.Assert;
+/**
+ * A compiled index of URI templates, per HTTP method. Each template is split into path segments, and a segment
+ * is either a literal or a <code>{param}</code> capture. A URI is resolved by walking its segments down the tree once, 
+ * collecting the captured path params on the way. Literal segments take precedence over captures. Empty segments
+ * are ignored, so a trailing '/' does not matter.
+ * <p>
+ * Routes are expected to be added at startup, before any URI is resolved.
+ * @param <T> the target of a route
+ */
+public class RouteTree<T> {
+
+  /**
+   * A resolved route.
+   * @param <T>
+   */
+  public static final class Route<T>
+  {
+    private final T target;
+    private final Map<String, String> pathParams;
+    private Route(T target, Map<String, String> pathParams) {
+      this.target = target;
+      this.pathParams = pathParams;
+    }
+    public T getTarget() {
+      return target;
+    }
+    /**
+     * 
+     * @return the captured path params, by name
+     */
+    public Map<String, String> getPathParams() {
+      return pathParams;
+    }
+  }
+  
+  private static final class Node<T>
+  {
+    private final Map<String, Node<T>> literals = new HashMap<>();
+    private final Map<String, Node<T>> captures = new LinkedHashMap<>(2);
+    private T target;
+  }
+  
+  private final Map<String, Node<T>> roots = new ConcurrentHashMap<>();
+  
+  private static List<String> segments(String uri)
+  {
+    int end = uri.length();
+    int q = uri.indexOf('?');
+    if(q >= 0)
+      end = q;
+    int h = uri.indexOf('#');
+    if(h >= 0 && h < end)
+      end = h;
+    
+    List<String> segments = new ArrayList<>();
+    int from = 0;
+    //skip the scheme and authority, if absolute
+    int scheme = uri.indexOf("://");
+    if(scheme >= 0 && scheme < end)
+    {
+      from = uri.indexOf('/', scheme + 3);
+      if(from < 0 || from > end)
+        return segments;
+    }
+    while(from < end)
+    {
+      int slash = uri.indexOf('/', from);
+      if(slash < 0 || slash > end)
+        slash = end;
+      if(slash > from)
+        segments.add(uri.substring(from, slash));
+      from = slash + 1;
+    }
+    return segments;
+  }
+  private static String decode(String segment)
+  {
+    if(segment.indexOf('%') < 0)
+      return segment;
+    try {
+      return URLDecoder.decode(segment.replace("+", "%2B"), "UTF-8");
+    } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+      return segment;
+    }
+  }
+  /**
+   * Add a route.
+   * @param method HTTP method
+   * @param uriTemplate
+   * @param target
+   * @throws IllegalArgumentException if the template is invalid, or already mapped
+   */
+  public synchronized void add(String method, String uriTemplate, T target)
+  {
+    Assert.notNull(method);
+    Assert.notNull(uriTemplate);
+    Node<T> node = roots.get(method);
+    if(node == null)
+    {
+      node = new Node<>();
+      roots.put(method, node);
+    }
+    for(String segment : segments(uriTemplate))
+    {
+      if(segment.startsWith("{") && segment.endsWith("}"))
+      {
+        String name = segment.substring(1, segment.length()-1);
+        Node<T> next = node.captures.get(name);
+        if(next == null)
+        {
+          next = new Node<>();
+          node.captures.put(name, next);
+        }
+        node = next;
+      }
+      else if(segment.startsWith("{") || segment.endsWith("}"))
+        throw new IllegalArgumentException("Invalid URI: "+uriTemplate);
+      else
+      {
+        Node<T> next = node.literals.get(segment);
+        if(next == null)
+        {
+          next = new Node<>();
+          node.literals.put(segment, next);
+        }
+        node = next;
+      }
+    }
+    if(node.target != null)
+      throw new IllegalArgumentException("Already mapped: "+method+" "+uriTemplate);
+    node.target = target;
+  }
+  
+  private static <T> Node<T> find(Node<T> node, List<String> segments, int i, String[] captured)
+  {
+    if(i == segments.size())
+      return node.target != null ? node : null;
+    
+    Node<T> next = node.literals.get(segments.get(i));
+    if(next != null)
+    {
+      Node<T> found = find(next, segments, i+1, captured);
+      if(found != null)
+        return found;
+    }
+    for(Map.Entry<String, Node<T>> capture : node.captures.entrySet())
+    {
+      Node<T> found = find(capture.getValue(), segments, i+1, captured);
+      if(found != null)
+      {
+        captured[i] = capture.getKey();
+        return found;
+      }
+    }
+    return null;
+  }
+  /**
+   * Resolve a request URI. Any query string is ignored.
+   * @param method HTTP method
+   * @param uri
+   * @return the route, or null if not mapped
+   */
+  public Route<T> find(String method, String uri)
+  {
+    Node<T> root = roots.get(method);
+    if(root == null || uri == null)
+      return null;
+    List<String> segments = segments(uri);
+    String[] captured = new String[segments.size()];
+    Node<T> node = find(root, segments, 0, captured);
+    if(node == null)
+      return null;
+    
+    Map<String, String> params = null;
+    for(int i=0; i<captured.length; i++)
+    {
+      if(captured[i] != null)
+      {
+        if(params == null)
+          params = new HashMap<>();
+        params.put(captured[i], decode(segments.get(i)));
+      }
+    }
+    return new Route<>(node.target, params != null ? params : Collections.<String, String>emptyMap());
+  }
+}
@@ -0,0 +1,141 @@
+/* ============================================================================
+*
+* FILE: ByteRingBuffer.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock free byte ring buffer for a single producer and a single consumer thread.
+ * The producer only moves the tail, and the consumer only moves the head. Capacity is rounded
+ * up to a power of 2.
+ */
+final class ByteRingBuffer {
+
+  private final byte[] buffer;
+  private final int mask;
+  //next index to read. written by consumer only
+  private final AtomicLong head = new AtomicLong();
+  //next index to write. written by producer only
+  private final AtomicLong tail = new AtomicLong();
+  /**
+   * 
+   * @param minCapacity
+   */
+  ByteRingBuffer(int minCapacity) {
+    int capacity = minCapacity <= 2 ? 2 : Integer.highestOneBit(minCapacity - 1) << 1;
+    if(capacity <= 0)
+      throw new IllegalArgumentException("Capacity too large: "+minCapacity);
+    buffer = new byte[capacity];
+    mask = capacity - 1;
+  }
+  int capacity()
+  {
+    return buffer.length;
+  }
+  /**
+   * Bytes available for reading.
+   * @return
+   */
+  int size()
+  {
+    return (int) (tail.get() - head.get());
+  }
+  boolean isEmpty()
+  {
+    return size() == 0;
+  }
+  /**
+   * Space available for writing.
+   * @return
+   */
+  int remainingCapacity()
+  {
+    return buffer.length - size();
+  }
+  /**
+   * Producer side. Copies as many bytes as there is space for.
+   * @param src
+   * @param off
+   * @param len
+   * @return no of bytes written, 0 if full
+   */
+  int offer(byte[] src, int off, int len)
+  {
+    long t = tail.get();
+    int n = Math.min(len, buffer.length - (int) (t - head.get()));
+    if(n <= 0)
+      return 0;
+    int idx = (int) (t & mask);
+    int first = Math.min(n, buffer.length - idx);
+    System.arraycopy(src, off, buffer, idx, first);
+    System.arraycopy(src, off + first, buffer, 0, n - first);
+    tail.set(t + n);
+    return n;
+  }
+  /**
+   * Consumer side. Copies as many bytes as are available.
+   * @param dst
+   * @param off
+   * @param len
+   * @return no of bytes read, 0 if empty
+   */
+  int poll(byte[] dst, int off, int len)
+  {
+    long h = head.get();
+    int n = Math.min(len, (int) (tail.get() - h));
+    if(n <= 0)
+      return 0;
+    int idx = (int) (h & mask);
+    int first = Math.min(n, buffer.length - idx);
+    System.arraycopy(buffer, idx, dst, off, first);
+    System.arraycopy(buffer, 0, dst, off + first, n - first);
+    head.set(h + n);
+    return n;
+  }
+  /**
+   * Consumer side. 
+   * @return the next byte as an unsigned int, or -1 if empty
+   */
+  int poll()
+  {
+    long h = head.get();
+    if(tail.get() == h)
+      return -1;
+    int b = buffer[(int) (h & mask)] & 0xff;
+    head.set(h + 1);
+    return b;
+  }
+  /**
+   * Consumer side. Discards the available bytes.
+   */
+  void clear()
+  {
+    head.set(tail.get());
+  }
+}
@@ -31,13 +31,9 @@ package com.reactivetechnologies.platform.stream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
-import java.nio.ByteBuffer;
 import java.nio.channels.InterruptibleChannel;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,13 +44,18 @@ import com.reactivetechnologies.platform.datagrid.core.HazelcastClusterServiceBe
 import com.reactivetechnologies.platform.datagrid.handlers.MessageChannel;
 /**
  * A single threaded piped input stream. Will be distributed in nature.
- * The 'connect' to the output stream is via a Hazelcast topic.
+ * The 'connect' to the output stream is via a Hazelcast topic. The bytes received on the topic
+ * listener thread are handed over to the reader thread via a single producer/single consumer {@linkplain ByteRingBuffer}.
  * 
  */
 public class DistributedPipedInputStream extends InputStream implements InterruptibleChannel, MessageChannel<byte[]>, Buffered{
 
   protected static final Logger log = LoggerFactory.getLogger(DistributedPipedInputStream.class);
-  private ByteBuffer writeBuffer;
+  /**
+   * No of chunks the ring buffer can hold, before the topic listener is blocked.
+   */
+  static final int BUFFERED_CHUNKS = 4;
+  private final ByteRingBuffer ringBuffer;
   private boolean connected = false;
   
   private final HazelcastClusterServiceBean hzService;
@@ -76,72 +77,133 @@ public class DistributedPipedInputStream extends InputStream implements Interrup
    * @param hzService
    */
   public DistributedPipedInputStream(int bufferSize, HazelcastClusterServiceBean hzService)
+  {
+      this(null, bufferSize, hzService);
+  }
+  private final String topic;
+  /**
+   * Input stream on a stream session. Only the bytes published on the session topic are received.
+   * @param sessionId
+   * @param bufferSize
+   * @param hzService
+   * @see Configurator#pipedTopic(String)
+   */
+  public DistributedPipedInputStream(String sessionId, int bufferSize, HazelcastClusterServiceBean hzService)
   {
       this.hzService = hzService;
-      writeBuffer = ByteBuffer.allocate(bufferSize);
+      this.topic = Configurator.pipedTopic(sessionId);
+      ringBuffer = new ByteRingBuffer(bufferSize * BUFFERED_CHUNKS);
       topicRegId = this.hzService.addMessageChannel(this, true);
       setConnected(true);
   }
+  private void ensureOpen() throws IOException
+  {
+    if(!connected)
+      throw new IOException("Stream not connected to any source");
+    if(closed)
+      throw new IOException("Stream closed");
+  }
+  /**
+   * Blocks till a byte is available.
+   * @return the next byte, or -1 if the stream was disconnected while waiting
+   */
   @Override
   public int read() throws IOException {
-      if(!connected)
-          throw new IOException("Stream not connected to any source");
-      if(closed)
-        throw new IOException("Stream closed");
-      return readByte();
+      ensureOpen();
+      if(!awaitReadable())
+        return -1;
+      int b = ringBuffer.poll();
+      signalWriter();
+      return b;
+  }
+  /**
+   * Blocks till at least one byte is available, and then reads as many available bytes as
+   * would fit.
+   * @return no of bytes read, or -1 if the stream was disconnected while waiting
+   */
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    if (off < 0 || len < 0 || len > b.length - off)
+      throw new IndexOutOfBoundsException();
+    if(len == 0)
+      return 0;
+    
+    if(!awaitReadable())
+      return -1;
+    int n = ringBuffer.poll(b, off, len);
+    signalWriter();
+    return n;
   }
   
-  private byte readByte() throws InterruptedIOException
+  private boolean awaitReadable() throws InterruptedIOException
   {
-      try {
-          return readByteFromChannel();
-      } catch (InterruptedException e) {
-          throw new InterruptedIOException();
-      }
+    try {
+      return awaitReadable(0, null);
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException();
+    }
   }
+  
   public boolean isBlocked()
   {
-      while(!b1.compareAndSet(false, true));
-      try {
-          return reader != null && reader.isAlive();
-      } finally {
-          b1.compareAndSet(true, false);
-      }
-     
+    Thread t = reader;
+    return t != null && t.isAlive();
+  }
+  //reader thread parked on empty buffer
+  private volatile Thread reader;
+  //listener thread parked on full buffer
+  private volatile Thread writer;
+  
+  private void signalWriter()
+  {
+    Thread t = writer;
+    if(t != null)
+      LockSupport.unpark(t);
+  }
+  private void signalReader()
+  {
+    Thread t = reader;
+    if(t != null)
+      LockSupport.unpark(t);
   }
-  private final AtomicBoolean b1 = new AtomicBoolean();
-  private Thread reader;
   /**
-   *   
-   * @return
+   * Parks the reader till bytes are available, or the stream is disconnected, or the time elapses.
+   * @param duration wait indefinitely if unit is null
+   * @param unit
+   * @return if bytes available
    * @throws InterruptedException
    */
-  private Byte readByteFromChannel() throws InterruptedException
+  private boolean awaitReadable(long duration, TimeUnit unit) throws InterruptedException
   {
-      Byte _byte = null;
-      lock.lock();
+    final long deadline = unit != null ? System.nanoTime() + unit.toNanos(duration) : 0;
+    while(ringBuffer.isEmpty())
+    {
+      if(closed)
+        return false;
+      if(Thread.interrupted())
+        throw new InterruptedException();
+      
+      long nanos = 0;
+      if(unit != null && (nanos = deadline - System.nanoTime()) <= 0)
+        return false;
+      
+      reader = Thread.currentThread();
       try 
       {
-          reader = Thread.currentThread();
-          if(readBuffer != null && readBuffer.hasRemaining()){
-            _byte = readBuffer.get();
-          }
+        //re-check after publishing the reader, so that a signal is not missed
+        if(ringBuffer.isEmpty() && !closed)
+        {
+          if(unit != null)
+            LockSupport.parkNanos(this, nanos);
           else
-          {
-            spaceAvailable.signalAll();
-            bytesAvailable.await();
-            
-          }
-            
-    } finally {
-      lock.unlock();
-      while (!b1.compareAndSet(false, true))
-        ;
-      reader = null;
-      b1.compareAndSet(true, false);
-
+            LockSupport.park(this);
+        }
+      } finally {
+        reader = null;
+      }
     }
-      return _byte;
+    return true;
   }
   private volatile boolean closed = false;
   /* (non-Javadoc)
@@ -150,10 +212,8 @@ public class DistributedPipedInputStream extends InputStream implements Interrup
   @Override
   public void clear()
   {
-    if (readBuffer != null) {
-      readBuffer.clear();
-    }
-    writeBuffer.clear();
+    ringBuffer.clear();
+    signalWriter();
   }
   @Override
   public void close() throws IOException {
@@ -164,27 +224,16 @@ public class DistributedPipedInputStream extends InputStream implements Interrup
   public void disconnect()
   {
     if (!closed) {
-      while (!b1.compareAndSet(false, true))
-        ;
-      if (reader != null) {
-        reader.interrupt();
-      }
-      b1.compareAndSet(true, false);
-      clear();
-      hzService.removeMessageChannel(topic(), topicRegId);
       closed = true;
+      signalReader();
+      signalWriter();
+      hzService.removeMessageChannel(topic(), topicRegId);
     }
   }
   @Override
   public boolean isOpen() {
       return !closed;
   }
-  private final Lock lock = new ReentrantLock();
-  private final Condition bytesAvailable = lock.newCondition();
-  private final Condition spaceAvailable = lock.newCondition();
-  
-  private byte[] nextBytes;
-  private ByteBuffer readBuffer;
   
   @Override
   public void onMessage(Message<byte[]> message) {
@@ -218,19 +267,7 @@ public class DistributedPipedInputStream extends InputStream implements Interrup
    */
   public int awaitAvailable(long duration, TimeUnit unit) throws InterruptedException
   {
-    if(available() == 0) {
-      synchronized (this) {
-        if(available() == 0){
-          try {
-            reader = Thread.currentThread();
-            wait(unit.toMillis(duration));
-          } finally {
-            reader = null;
-          }
-        }
-      }
-    }
-    
+    awaitReadable(duration, unit);
     return available();
   }
   /**
@@ -242,192 +279,58 @@ public class DistributedPipedInputStream extends InputStream implements Interrup
    */
   public int awaitUntilAvailable(long duration, TimeUnit unit) throws InterruptedException
   {
-    lock.lock();
-    try
-    {
-      if(_available(false) == 0)
-      {
-        reader = Thread.currentThread();
-        bytesAvailable.await(duration, unit);
-      }
-    }
-    finally{
-      reader = null;
-      lock.unlock();
-    }
-    
+    awaitReadable(duration, unit);
     return available();
   }
   
-  private int _available(boolean flush)
-  {
-    if(readBuffer != null && readBuffer.remaining() != 0)
-    {
-      return readBuffer.remaining();
-    }
-    else
-    {
-      int available = bufferedCount;
-      if (flush && available > 0) {
-        lock.lock();
-        try 
-        {
-          copyAndFlush(true);
-          log.debug("available => " + readBuffer.remaining());
-        } catch (InterruptedException e) {
-          Thread.currentThread().interrupt();
-          log.warn("", e);
-        } finally {
-          lock.unlock();
-        } 
-      }
-      return available;
-    }
-  }
   @Override
   public int available()
   {
-    return _available(true);
-    
-  }
-  private void handleBytesReceived(byte[] receivedBytes)
-  {
-    lock.lock();
-    try 
-    {
-      try 
-      {
-        doBufferedCopy(receivedBytes);
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        e.printStackTrace();
-      }      
-      
-    } finally {
-      lock.unlock();
-    }
-  }
-  
-  private void appendToPrevBytes(byte[] thisBytes)
-  {
-    byte[] addedBytes = new byte[nextBytes.length + thisBytes.length];
-    
-    System.arraycopy(nextBytes, 0, addedBytes, 0, nextBytes.length);
-    System.arraycopy(thisBytes, 0, addedBytes, nextBytes.length, thisBytes.length);
+    return ringBuffer.size();
     
-    nextBytes = addedBytes;
   }
-  private volatile int bufferedCount = 0;
   /**
-   * Copy from the write buffer to read buffer.
-   * @param forceFlush
-   * @throws InterruptedException
+   * Max time the topic listener would wait for the reader to make space, before failing.
+   */
+  static final long WRITER_WAIT_SECS = 300;
+  /**
+   * Copies the received bytes to the ring buffer, parking the listener thread while the buffer is full.
+   * @param receivedBytes
    */
-  private void copyAndFlush(boolean forceFlush) throws InterruptedException
+  private void handleBytesReceived(byte[] receivedBytes)
   {
-    if(nextBytes == null || nextBytes.length == 0)
-      return;
-    log.debug("copyAndFlush() writeBuffer.remaining => "+writeBuffer.remaining());
-    if(writeBuffer.remaining() >= nextBytes.length)
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WRITER_WAIT_SECS);
+    int off = 0;
+    while(off < receivedBytes.length)
     {
-      writeBuffer.put(nextBytes);
-      nextBytes = null;
-      bufferedCount = writeBuffer.position();
-      
-      if(forceFlush){
-        flushBuffers();
-        bufferedCount = 0;
-      }
-      log.debug("copyAndFlush(non overflow) bufferedCount => "+bufferedCount);
-    }
-    else
-    {
-      int copyLen = 0;
-      if (writeBuffer.hasRemaining()) 
+      int n = ringBuffer.offer(receivedBytes, off, receivedBytes.length - off);
+      if(n > 0)
       {
-        copyLen = writeBuffer.remaining();
-        writeBuffer.put(nextBytes, 0, copyLen);
-        
+        off += n;
+        signalReader();
+        continue;
       }
       
-      byte[] remBytes = new byte[nextBytes.length - copyLen];
-      System.arraycopy(nextBytes, copyLen, remBytes, 0, remBytes.length);
-      nextBytes = remBytes;
-      bufferedCount = nextBytes.length;
-      
-      log.debug("copyAndFlush(overflow) bufferedCount => " + bufferedCount);
+      if(closed)
+        return;
+      long nanos = deadline - System.nanoTime();
+      if(nanos <= 0)
+        throw new IllegalStateException("No consumer seems to be available for ready bytes even after waiting "+WRITER_WAIT_SECS+" secs. "
+            + "Is there a corresponding DistributedPipedInputStream configured on the same Topic?");
       
-      flushBuffers();
-            
-    }
-  }
-  private void doBufferedCopy(final byte[] thisBytes) throws InterruptedException
-  {
-    if(nextBytes != null)
-    {
-      appendToPrevBytes(thisBytes);
-    }
-    else
-      nextBytes = thisBytes;
-    
-    log.debug("doBufferedCopy() => "+nextBytes.length);
-    
-    copyAndFlush(false);
-  }
-  
-  private byte[] fetchReadBytes()
-  {
-    writeBuffer.flip();
-    byte[] readableBytes = new byte[writeBuffer.limit()];
-    writeBuffer.get(readableBytes);
-    log.debug("fetchReadBytes() => "+readableBytes.length);
-    return readableBytes;
-  }
-  /**
-   * 
-   * @param readableBytes 
-   * @throws InterruptedException
-   */
-  private void copyReadBytes(byte[] readableBytes) throws InterruptedException
-  {
-    if(readBuffer != null && readBuffer.hasRemaining())
-    {
+      writer = Thread.currentThread();
       try 
       {
-        log.debug("---------- copyReadBytes waiting --------");
-        boolean b = spaceAvailable.await(300, TimeUnit.SECONDS);
-        if(!b)
-          throw new IllegalStateException("No consumer seems to be available for ready bytes even after waiting 300 secs. "
-              + "Is there a corresponding DistributedPipedInputStream configured on the same Topic?");
-        log.debug("---------- copyReadBytes released --------");
-      } catch (InterruptedException e) {
-        throw e;
+        //re-check after publishing the writer, so that a signal is not missed
+        if(ringBuffer.remainingCapacity() == 0 && !closed)
+        {
+          LockSupport.parkNanos(this, nanos);
+        }
+      } finally {
+        writer = null;
       }
-    }
       
-    if(readBuffer == null)
-    {
-      readBuffer = ByteBuffer.wrap(readableBytes);
-    }
-    else
-    {
-      readBuffer.clear();
-      readBuffer.put(readableBytes);
-      readBuffer.flip();
     }
-    log.debug("copyReadBytes() => "+readableBytes.length);
-  }
-  /**
-   * 
-   * @throws InterruptedException
-   */
-  private void flushBuffers() throws InterruptedException 
-  {
-    byte[] readableBytes = fetchReadBytes();
-    copyReadBytes(readableBytes);
-    
-    bytesAvailable.signalAll();
-    writeBuffer.clear();
   }
   
   @Override
@@ -436,6 +339,6 @@ public class DistributedPipedInputStream extends InputStream implements Interrup
   }
   @Override
   public String topic() {
-    return Configurator.PIPED_TOPIC_FILE;
+    return topic;
   }
 }
@@ -31,6 +31,7 @@ package com.reactivetechnologies.platform.stream;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.slf4j.Logger;
@@ -61,16 +62,18 @@ public class DistributedPipedOutputStream extends OutputStream implements Messag
   }
 
   private byte[] circularBuffer;
+  //the buffer last published. swapped with the current buffer on each full flush
+  private byte[] publishedBuffer;
   private int bufferSize = Configurator.DEFAULT_CHUNK_SIZE_BYTES;
   private int position = 0;
-  private int flushCount = 0;
+  private long flushedBytes = 0;
   private boolean connected;
  
   public long getPosition() {
       return position;
   }
   public long getBytesWritten() {
-    return flushCount*bufferSize + position;
+    return flushedBytes + position;
   }
     
   /**
@@ -80,8 +83,22 @@ public class DistributedPipedOutputStream extends OutputStream implements Messag
    * @throws IOException
    */
   public DistributedPipedOutputStream(int size, HazelcastClusterServiceBean hzService)
+  {
+    this(null, size, hzService);
+  }
+  private final String topic;
+  /**
+   * Output stream on a stream session. Bytes are published on the session topic only, so that concurrent
+   * sessions can stream independently.
+   * @param sessionId
+   * @param size
+   * @param hzService
+   * @see Configurator#pipedTopic(String)
+   */
+  public DistributedPipedOutputStream(String sessionId, int size, HazelcastClusterServiceBean hzService)
   {
     this.hzService = hzService;
+    this.topic = Configurator.pipedTopic(sessionId);
     bufferSize = size;
     regID = this.hzService.addMessageChannel(this, true);
     connect();
@@ -90,29 +107,69 @@ public class DistributedPipedOutputStream extends OutputStream implements Messag
   
   private void connect() {
       circularBuffer = new byte[bufferSize];
+      publishedBuffer = new byte[bufferSize];
       clear();
       setConnected(true);
   }
-  @Override
-  public void write(int b) throws IOException {
+  private void ensureOpen() throws IOException
+  {
     if(!connected)
       throw new IOException("Stream not connected to any sink");
     if(closed)
       throw new IOException("Stream closed");
+  }
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
     
     writeByte((byte) b);
   }
   @Override
   public void write(byte[] b) throws IOException {
-    if(!connected)
-      throw new IOException("Stream not connected to any sink");
-    if(closed)
-      throw new IOException("Stream closed");
-    
     Assert.notNull(b);
-    for(byte _b : b)
+    write(b, 0, b.length);
+  }
+  /**
+   * Bulk copies the bytes into the buffer, publishing each time the buffer is full.
+   */
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    Assert.notNull(b);
+    if (off < 0 || len < 0 || len > b.length - off)
+      throw new IndexOutOfBoundsException();
+    
+    while(len > 0)
     {
-      writeByte(_b);
+      if(position == bufferSize)
+      {
+        flushFullBuffer();
+      }
+      int copyLen = Math.min(len, bufferSize - position);
+      System.arraycopy(b, off, circularBuffer, position, copyLen);
+      position += copyLen;
+      off += copyLen;
+      len -= copyLen;
+    }
+  }
+  /**
+   * Bulk copies the remaining bytes of the source buffer, publishing each time the buffer is full.
+   * @param src
+   * @throws IOException
+   */
+  public void write(ByteBuffer src) throws IOException {
+    ensureOpen();
+    Assert.notNull(src);
+    
+    while(src.hasRemaining())
+    {
+      if(position == bufferSize)
+      {
+        flushFullBuffer();
+      }
+      int copyLen = Math.min(src.remaining(), bufferSize - position);
+      src.get(circularBuffer, position, copyLen);
+      position += copyLen;
     }
   }
   private void writeByte(byte b) throws IOException
@@ -134,9 +191,7 @@ public class DistributedPipedOutputStream extends OutputStream implements Messag
       {         
           if(position == bufferSize)
           {
-            flushBuffer();
-            flushCount++;
-            clear();
+            flushFullBuffer();
           }
           circularBuffer[position++] = b;
           //log.debug("bytes written -> ["+getBytesWritten()+"]");
@@ -145,13 +200,38 @@ public class DistributedPipedOutputStream extends OutputStream implements Messag
       }
      
   }
+  /**
+   * Publishes the full buffer as is, and swaps in the buffer published previously. So
+   * no copy is made, and the array just published is not written to till the next swap.
+   */
+  private void flushFullBuffer()
+  {
+    byte[] full = circularBuffer;
+    circularBuffer = publishedBuffer;
+    publishedBuffer = full;
+    
+    sendMessage(full);
+    flushedBytes += position;
+    clear();
+  }
   @Override
   public void flush()
   {
     flushBuffer();
   }
   private void flushBuffer() {
-    sendMessage(Arrays.copyOf(circularBuffer, position));
+    if(position == 0)
+      return;
+    if(position == bufferSize)
+    {
+      flushFullBuffer();
+    }
+    else
+    {
+      sendMessage(Arrays.copyOf(circularBuffer, position));
+      flushedBytes += position;
+      clear();
+    }
     
   }
   /**
@@ -160,7 +240,7 @@ public class DistributedPipedOutputStream extends OutputStream implements Messag
   public void reset()
   {
     clear();
-    flushCount = 0;
+    flushedBytes = 0;
   }
   /* (non-Javadoc)
    * @see com.reactivetechnologies.platform.stream.IStream#clear()
@@ -168,7 +248,6 @@ public class DistributedPipedOutputStream extends OutputStream implements Messag
   @Override
   public void clear()
   {
-    Arrays.fill(circularBuffer, (byte)-1);
     position = 0;
   }
   public int getBufferSize() {
@@ -212,7 +291,7 @@ public class DistributedPipedOutputStream extends OutputStream implements Messag
   }
   @Override
   public String topic() {
-    return Configurator.PIPED_TOPIC_FILE;
+    return topic;
   }
   @Override
   public void disconnect() {
@@ -223,7 +302,11 @@ public class DistributedPipedOutputStream extends OutputStream implements Messag
         
       }
       circularBuffer = null;
+      publishedBuffer = null;
       hzService.removeMessageChannel(topic(), regID);
+      //the writer owns the session, so no more bytes would be published on it
+      if(Configurator.isSessionTopic(topic()))
+        hzService.destroyTopic(topic());
       closed = true;
     }
     
@@ -40,6 +40,7 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.reactivetechnologies.platform.Configurator;
 import com.reactivetechnologies.platform.datagrid.core.HazelcastClusterServiceBean;
 
 /**
@@ -56,8 +57,19 @@ public class SimpleBytesStreamer implements Runnable
    * @param handler
    */
   public SimpleBytesStreamer(HazelcastClusterServiceBean hzService)
+  {
+    this(hzService, null);
+  }
+  private final String sessionId;
+  /**
+   * New streamer on a stream session.
+   * @param hzService
+   * @param sessionId
+   */
+  public SimpleBytesStreamer(HazelcastClusterServiceBean hzService, String sessionId)
   {
     this.hzService = hzService;
+    this.sessionId = sessionId;
   }
   private DistributedPipedOutputStream out;
   private DistributedPipedInputStream in;
@@ -120,8 +132,8 @@ public class SimpleBytesStreamer implements Runnable
   {
     if(handler == null)
       throw new IllegalStateException("IBytesHandler not set!");
-    out = new DistributedPipedOutputStream(hzService);
-    in = new DistributedPipedInputStream(hzService);
+    out = new DistributedPipedOutputStream(sessionId, Configurator.DEFAULT_CHUNK_SIZE_BYTES, hzService);
+    in = new DistributedPipedInputStream(sessionId, Configurator.DEFAULT_CHUNK_SIZE_BYTES, hzService);
     running = true;
     executor.submit(this);
     
@@ -133,8 +145,9 @@ public class SimpleBytesStreamer implements Runnable
   public void stop()
   {
     running = false;
-    out.disconnect();
     in.disconnect();
+    //destroys the session topic
+    out.disconnect();
   }
   @Override
   public void run() {
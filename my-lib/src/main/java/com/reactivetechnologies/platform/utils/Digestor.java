@@ -105,6 +105,17 @@ public class Digestor {
     Digestor d = new Digestor("MM");
     return d;
   }
+  /**
+   * A 8 byte murmur hash of the bytes, without creating a digestor.
+   * @param b
+   * @param off
+   * @param len
+   * @return
+   */
+  public static long murmur64(byte[] b, int off, int len)
+  {
+    return HashUtil.MurmurHash3_x64_64(b, off, len);
+  }
   /**
    * 
    * @return
@@ -121,13 +132,17 @@ public class Digestor {
     buff.flip();
     byte[] b = new byte[i];
     buff.get(b);
+    appendBytes(b, 0, b.length);
+  }
+  private void appendBytes(byte[] b, int off, int len)
+  {
     if(byteArray == null)
-      byteArray = b;
+      byteArray = Arrays.copyOfRange(b, off, off + len);
     else
     {
-      i = byteArray.length;
-      byteArray = Arrays.copyOf(byteArray, i + b.length);
-      System.arraycopy(b, 0, byteArray, i, b.length);
+      int i = byteArray.length;
+      byteArray = Arrays.copyOf(byteArray, i + len);
+      System.arraycopy(b, off, byteArray, i, len);
     }
     
   }
@@ -176,11 +191,22 @@ public class Digestor {
    * @return
    */
   public Digestor addBytes(byte[] s)
+  {
+    return addBytes(s, 0, s.length);
+  }
+  /**
+   * 
+   * @param s
+   * @param off
+   * @param len
+   * @return
+   */
+  public Digestor addBytes(byte[] s, int off, int len)
   {
     if(md != null)
-      md.update(s);
+      md.update(s, off, len);
     else
-      updateBytes(ByteBuffer.wrap(s));
+      appendBytes(s, off, len);
     return this;
   }
   /**
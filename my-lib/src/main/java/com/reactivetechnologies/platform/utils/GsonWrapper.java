@@ -31,15 +31,26 @@ package com.reactivetechnologies.platform.utils;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapterFactory;
 
 @Component
 public class GsonWrapper {
 
   private Gson gsonInstance = null;
+  @Value("${restserver.json.pretty:true}")
+  private boolean prettyPrinting = true;
+  /**
+   * Pretty printed or compact json output. To be set before first use.
+   * @param prettyPrinting
+   */
+  public void setPrettyPrinting(boolean prettyPrinting) {
+    this.prettyPrinting = prettyPrinting;
+  }
 
   /**
    * 
@@ -60,13 +71,18 @@ public class GsonWrapper {
   
   private <T> void build()
   {
-    GsonBuilder builder = new GsonBuilder()
-        .setPrettyPrinting().disableHtmlEscaping();
+    GsonBuilder builder = new GsonBuilder().disableHtmlEscaping();
+    if(prettyPrinting)
+      builder.setPrettyPrinting();
         
     for(AbstractJsonSerializer<?> adaptor: typeAdapters)
     {
       builder.registerTypeAdapter(adaptor.getClassType(), adaptor);
     }
+    for(TypeAdapterFactory factory: typeAdapterFactories)
+    {
+      builder.registerTypeAdapterFactory(factory);
+    }
     gsonInstance = builder.create();
     alreadyBuilt = true;
   }
@@ -81,6 +97,18 @@ public class GsonWrapper {
       throw new IllegalAccessException("Gson already initialized");
     typeAdapters.add(adaptor);
   }
+  private final List<TypeAdapterFactory> typeAdapterFactories = new ArrayList<>();
+  /**
+   * Register a type adapter factory, for custom deserialization as well.
+   * @param factory
+   * @throws IllegalAccessException if already initialized
+   */
+  public void registerTypeAdapterFactory(TypeAdapterFactory factory) throws IllegalAccessException
+  {
+    if(alreadyBuilt)
+      throw new IllegalAccessException("Gson already initialized");
+    typeAdapterFactories.add(factory);
+  }
   private volatile boolean alreadyBuilt;
   /**
    * 
@@ -0,0 +1,244 @@
+/* ============================================================================
+*
+* FILE: PayloadCodec.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.utils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import net.jpountz.lz4.LZ4Factory;
+/**
+ * Compression codecs for byte payloads written to the data grid. An encoded payload
+ * carries a codec id header, so a reader does not need to know the codec used by the writer.
+ * <pre>
+ * NONE    : [id][length][bytes]
+ * others  : [id][original length][encoded length][encoded bytes]
+ * </pre>
+ * Payloads smaller than {@link #MIN_ENCODE_LENGTH}, or which do not shrink on encoding, are written as is.
+ */
+public enum PayloadCodec {
+
+  /**
+   * No compression.
+   */
+  NONE((byte) 0) {
+    @Override
+    byte[] encode(byte[] b, int off, int len) {
+      return Arrays.copyOfRange(b, off, off + len);
+    }
+
+    @Override
+    byte[] decode(byte[] b, int originalLength) {
+      return b;
+    }
+  },
+  /**
+   * {@linkplain Deflater} at best speed. Better ratio, more cpu.
+   */
+  DEFLATE((byte) 1) {
+    @Override
+    byte[] encode(byte[] b, int off, int len) {
+      Deflater d = DEFLATERS.get();
+      d.reset();
+      d.setInput(b, off, len);
+      d.finish();
+      byte[] enc = new byte[len];
+      int n = 0;
+      while (!d.finished()) {
+        if (n == enc.length) {
+          enc = Arrays.copyOf(enc, enc.length << 1);
+        }
+        n += d.deflate(enc, n, enc.length - n);
+      }
+      return Arrays.copyOf(enc, n);
+    }
+
+    @Override
+    byte[] decode(byte[] b, int originalLength) throws IOException {
+      Inflater i = INFLATERS.get();
+      i.reset();
+      i.setInput(b);
+      byte[] dec = new byte[originalLength];
+      try {
+        int n = 0;
+        while (n < originalLength && !i.finished()) {
+          int r = i.inflate(dec, n, originalLength - n);
+          if (r == 0 && (i.needsInput() || i.needsDictionary())) {
+            break;
+          }
+          n += r;
+        }
+        if (n != originalLength) {
+          throw new IOException("Inflated " + n + " bytes, expected " + originalLength);
+        }
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      }
+      return dec;
+    }
+  },
+  /**
+   * LZ4 fast compressor. Lower ratio, fast enough to keep up with network transfer.
+   */
+  LZ4((byte) 2) {
+    @Override
+    byte[] encode(byte[] b, int off, int len) {
+      return LZ4_FACTORY.fastCompressor().compress(b, off, len);
+    }
+
+    @Override
+    byte[] decode(byte[] b, int originalLength) {
+      return LZ4_FACTORY.fastDecompressor().decompress(b, originalLength);
+    }
+  };
+
+  /**
+   * Payloads smaller than this are not encoded.
+   */
+  public static final int MIN_ENCODE_LENGTH = 256;
+
+  private static final LZ4Factory LZ4_FACTORY = LZ4Factory.fastestInstance();
+  private static final ThreadLocal<Deflater> DEFLATERS = new ThreadLocal<Deflater>() {
+    @Override
+    protected Deflater initialValue() {
+      return new Deflater(Deflater.BEST_SPEED);
+    }
+  };
+  private static final ThreadLocal<Inflater> INFLATERS = new ThreadLocal<Inflater>() {
+    @Override
+    protected Inflater initialValue() {
+      return new Inflater();
+    }
+  };
+
+  private final byte id;
+
+  private PayloadCodec(byte id) {
+    this.id = id;
+  }
+
+  public byte getId() {
+    return id;
+  }
+
+  abstract byte[] encode(byte[] b, int off, int len);
+
+  abstract byte[] decode(byte[] b, int originalLength) throws IOException;
+
+  /**
+   * Get the codec for a header id.
+   * @param id
+   * @return
+   * @throws IOException if the id is not known
+   */
+  public static PayloadCodec fromId(byte id) throws IOException {
+    for (PayloadCodec c : values()) {
+      if (c.id == id)
+        return c;
+    }
+    throw new IOException("Unknown payload codec id " + id);
+  }
+
+  /**
+   * Write the header for an uncompressed payload. The caller should follow up by writing
+   * exactly {@code length} bytes.
+   * @param out
+   * @param length
+   * @throws IOException
+   */
+  public static void writeHeader(ObjectDataOutput out, int length) throws IOException {
+    out.writeByte(NONE.id);
+    out.writeInt(length);
+  }
+
+  /**
+   * Write the bytes encoded with this codec. A null array is written as an uncompressed payload
+   * of length -1.
+   * @param out
+   * @param b
+   * @param off
+   * @param len
+   * @throws IOException
+   */
+  public void write(ObjectDataOutput out, byte[] b, int off, int len) throws IOException {
+    if (b == null) {
+      writeHeader(out, -1);
+      return;
+    }
+    if (this != NONE && len >= MIN_ENCODE_LENGTH) {
+      byte[] enc = encode(b, off, len);
+      if (enc.length < len) {
+        out.writeByte(id);
+        out.writeInt(len);
+        out.writeInt(enc.length);
+        out.write(enc);
+        return;
+      }
+    }
+    writeHeader(out, len);
+    out.write(b, off, len);
+  }
+
+  /**
+   * Write the bytes encoded with this codec.
+   * @param out
+   * @param b
+   * @throws IOException
+   */
+  public void write(ObjectDataOutput out, byte[] b) throws IOException {
+    write(out, b, 0, b != null ? b.length : 0);
+  }
+
+  /**
+   * Read a payload written by any codec.
+   * @param in
+   * @return the decoded bytes, or null
+   * @throws IOException
+   */
+  public static byte[] read(ObjectDataInput in) throws IOException {
+    PayloadCodec codec = fromId(in.readByte());
+    int len = in.readInt();
+    if (len < 0)
+      return null;
+    byte[] b;
+    if (codec == NONE) {
+      b = new byte[len];
+      in.readFully(b);
+      return b;
+    }
+    b = new byte[in.readInt()];
+    in.readFully(b);
+    return codec.decode(b, len);
+  }
+}
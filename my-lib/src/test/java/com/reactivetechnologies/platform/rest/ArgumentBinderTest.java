@@ -0,0 +1,74 @@
+/* ============================================================================
+*
+* FILE: ArgumentBinderTest.java
+*
+* MODULE DESCRIPTION:
+* See class description
+*
+* Copyright (C) 2015
+*
+* All rights reserved
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.rest;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.webbitserver.HttpRequest;
+import org.webbitserver.stub.StubHttpRequest;
+
+public class ArgumentBinderTest {
+
+  private static HttpRequest request(String uri, String... pathParams) {
+    Map<String, String> params = new HashMap<>();
+    for (int i = 0; i < pathParams.length; i += 2) {
+      params.put(pathParams[i], pathParams[i + 1]);
+    }
+    return new StubHttpRequest(uri).data(WebbitRestServerBean.PATH_PARAMS, params);
+  }
+
+  @Test
+  public void pathParamShouldBeConvertedToType() {
+    HttpRequest req = request("/users/42", "id", "42");
+    assertThat(ArgumentBinder.forType(int.class, "id", null).bind(req), equalTo((Object) 42));
+    assertThat(ArgumentBinder.forType(Long.class, "id", null).bind(req), equalTo((Object) 42L));
+    assertThat(ArgumentBinder.forType(String.class, "id", null).bind(req), equalTo((Object) "42"));
+  }
+
+  @Test
+  public void queryParamShouldTakePrecedenceOverPathParam() {
+    HttpRequest req = request("/users/42?id=7", "id", "42");
+    assertThat(ArgumentBinder.forType(int.class, "id", "id").bind(req), equalTo((Object) 7));
+    assertThat(ArgumentBinder.forType(int.class, "id", "other").bind(req), equalTo((Object) 42));
+  }
+
+  @Test
+  public void missingParamShouldBindDefault() {
+    HttpRequest req = request("/users");
+    assertThat(ArgumentBinder.forType(int.class, "id", "id").bind(req), equalTo((Object) 0));
+    assertThat(ArgumentBinder.forType(boolean.class, "id", null).bind(req), equalTo((Object) false));
+    assertThat(ArgumentBinder.forType(Integer.class, "id", null).bind(req), is(nullValue()));
+  }
+
+  @Test
+  public void valueOfOrStringConstructorShouldBeUsed() {
+    HttpRequest req = request("/jobs?unit=SECONDS&path=tmp");
+    assertThat(ArgumentBinder.forType(TimeUnit.class, null, "unit").bind(req), equalTo((Object) TimeUnit.SECONDS));
+    assertThat(ArgumentBinder.forType(File.class, null, "path").bind(req), equalTo((Object) new File("tmp")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unconvertibleParamShouldFail() {
+    ArgumentBinder.forType(int.class, "id", null).bind(request("/users/x", "id", "x"));
+  }
+}
@@ -0,0 +1,98 @@
+/* ============================================================================
+*
+* FILE: RouteTreeTest.java
+*
+* MODULE DESCRIPTION:
+* See class description
+*
+* Copyright (C) 2015
+*
+* All rights reserved
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.rest.rt;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.reactivetechnologies.platform.rest.rt.RouteTree.Route;
+
+public class RouteTreeTest {
+
+  private RouteTree<String> tree;
+
+  @Before
+  public void setUp() {
+    tree = new RouteTree<>();
+    tree.add("GET", "/users/{id}", "user");
+    tree.add("GET", "/users/me", "me");
+    tree.add("GET", "/users/{id}/orders/{order}", "order");
+    tree.add("GET", "/users/me/settings", "settings");
+    tree.add("POST", "/users/{id}", "update");
+  }
+
+  @Test
+  public void literalShouldTakePrecedenceOverCapture() {
+    Route<String> r = tree.find("GET", "/users/me");
+    assertThat(r.getTarget(), is("me"));
+    assertTrue(r.getPathParams().isEmpty());
+
+    r = tree.find("GET", "/users/42");
+    assertThat(r.getTarget(), is("user"));
+    assertThat(r.getPathParams().get("id"), is("42"));
+  }
+
+  @Test
+  public void shouldBacktrackFromLiteralToCapture() {
+    //'me' matches the literal, but only the capture has orders below it
+    Route<String> r = tree.find("GET", "/users/me/orders/7");
+    assertThat(r.getTarget(), is("order"));
+    assertThat(r.getPathParams().get("id"), is("me"));
+    assertThat(r.getPathParams().get("order"), is("7"));
+  }
+
+  @Test
+  public void pathParamsShouldBePercentDecoded() {
+    Route<String> r = tree.find("GET", "/users/a%20b%2Fc+d");
+    assertThat(r.getTarget(), is("user"));
+    assertThat(r.getPathParams().get("id"), is("a b/c+d"));
+  }
+
+  @Test
+  public void trailingSlashShouldBeIgnored() {
+    assertThat(tree.find("GET", "/users/me/").getTarget(), is("me"));
+    assertThat(tree.find("GET", "users//42/").getPathParams().get("id"), is("42"));
+  }
+
+  @Test
+  public void queryStringShouldBeIgnored() {
+    Route<String> r = tree.find("GET", "/users/42?id=7&x=/users/me");
+    assertThat(r.getTarget(), is("user"));
+    assertThat(r.getPathParams().get("id"), is("42"));
+    assertThat(tree.find("GET", "http://host:8080/users/me?q=1").getTarget(), is("me"));
+  }
+
+  @Test
+  public void shouldMatchByMethodAndFullPath() {
+    assertThat(tree.find("POST", "/users/42").getTarget(), is("update"));
+    assertThat(tree.find("DELETE", "/users/42"), is(nullValue()));
+    assertThat(tree.find("GET", "/users"), is(nullValue()));
+    assertThat(tree.find("GET", "/users/42/orders"), is(nullValue()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void duplicateTemplateShouldFail() {
+    tree.add("GET", "/users/{id}/", "again");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void malformedCaptureShouldFail() {
+    tree.add("GET", "/users/{id", "bad");
+  }
+}
@@ -0,0 +1,95 @@
+/* ============================================================================
+*
+* FILE: ByteRingBufferTest.java
+*
+* MODULE DESCRIPTION:
+* See class description
+*
+* Copyright (C) 2015 
+*
+* All rights reserved
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.platform.stream;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ByteRingBufferTest {
+
+  @Test
+  public void capacityShouldBeRoundedToPowerOf2() {
+    assertThat(new ByteRingBuffer(1000).capacity(), is(1024));
+    assertThat(new ByteRingBuffer(1024).capacity(), is(1024));
+  }
+
+  @Test
+  public void offerShouldWriteOnlyTillFull() {
+    ByteRingBuffer ring = new ByteRingBuffer(8);
+    assertThat(ring.offer(new byte[10], 0, 10), is(8));
+    assertThat(ring.remainingCapacity(), is(0));
+    assertThat(ring.offer(new byte[1], 0, 1), is(0));
+  }
+
+  @Test
+  public void pollShouldReadAcrossWrapAround() {
+    ByteRingBuffer ring = new ByteRingBuffer(8);
+    byte[] read = new byte[8];
+    ring.offer(new byte[]{1, 2, 3, 4, 5, 6}, 0, 6);
+    assertThat(ring.poll(read, 0, 4), is(4));
+    
+    ring.offer(new byte[]{7, 8, 9, 10, 11, 12}, 0, 6);
+    assertThat(ring.size(), is(8));
+    assertThat(ring.poll(read, 0, 8), is(8));
+    assertArrayEquals(new byte[]{5, 6, 7, 8, 9, 10, 11, 12}, read);
+    assertThat(ring.poll(), is(-1));
+  }
+
+  @Test
+  public void pollShouldReturnUnsignedByte() {
+    ByteRingBuffer ring = new ByteRingBuffer(8);
+    ring.offer(new byte[]{-1}, 0, 1);
+    assertThat(ring.poll(), is(255));
+  }
+
+  @Test(timeout = 10000)
+  public void producerAndConsumerShouldTransferInOrder() throws Exception {
+    final ByteRingBuffer ring = new ByteRingBuffer(64);
+    final byte[] sent = new byte[1 << 20];
+    new Random().nextBytes(sent);
+    
+    Thread producer = new Thread(new Runnable() {
+      
+      @Override
+      public void run() {
+        int off = 0;
+        while(off < sent.length)
+        {
+          int n = ring.offer(sent, off, Math.min(100, sent.length - off));
+          if(n == 0)
+            Thread.yield();
+          off += n;
+        }
+      }
+    });
+    producer.start();
+    
+    byte[] received = new byte[sent.length];
+    int off = 0;
+    while(off < received.length)
+    {
+      int n = ring.poll(received, off, received.length - off);
+      if(n == 0)
+        Thread.yield();
+      off += n;
+    }
+    producer.join();
+    assertArrayEquals(sent, received);
+  }
+}
@@ -19,6 +19,8 @@ import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.After;
@@ -207,6 +209,46 @@ public class HzKeyValueAdapterTest {
     assertThat(adapter.delete("1", COLLECTION_1), is(object1));
   }
 
+  @Test
+  public void putAllShouldAddAllItemsFetchedByGetAll() {
+    Map<String, Object> items = new HashMap<>();
+    items.put("1", object1);
+    items.put("2", object2);
+    adapter.putAll(items, COLLECTION_1);
+
+    Map<Serializable, Object> fetched = adapter.getAll(Arrays.asList("1", "2", "3"), COLLECTION_1);
+    assertThat(fetched.size(), is(2));
+    assertThat(fetched.get("1"), is(object1));
+    assertThat(fetched.get("2"), is(object2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getAllShouldThrowExceptionWhenAnIdIsNull() {
+    adapter.getAll(Arrays.asList("1", null), COLLECTION_1);
+  }
+
+  @Test
+  public void deleteAllShouldReturnDeletedItemsOfPresentIds() {
+    adapter.put("1", object1, COLLECTION_1);
+    adapter.put("2", object2, COLLECTION_1);
+
+    Map<Serializable, Object> deleted = adapter.deleteAll(Arrays.asList("1", "3"), COLLECTION_1);
+    assertThat(deleted.size(), is(1));
+    assertThat(deleted.get("1"), is(object1));
+    assertThat(adapter.contains("1", COLLECTION_1), is(false));
+    assertThat(adapter.contains("2", COLLECTION_1), is(true));
+  }
+
+  @Test
+  public void asyncOperationsShouldCompleteWithItems() throws Exception {
+    adapter.delete("1", COLLECTION_1);
+    assertThat(adapter.putAsync("1", object1, COLLECTION_1).get(), nullValue());
+    adapter.setAsync("1", object2, COLLECTION_1).get();
+    assertThat(adapter.getAsync("1", COLLECTION_1).get(), is(object2));
+    assertThat(adapter.deleteAsync("1", COLLECTION_1).get(), is(object2));
+    assertThat(adapter.contains("1", COLLECTION_1), is(false));
+  }
+
   /**
    * @see DATAKV-99
    */
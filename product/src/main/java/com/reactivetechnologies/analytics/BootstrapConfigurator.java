@@ -50,10 +50,16 @@ import org.springframework.util.StringUtils;
 
 import com.google.gson.JsonObject;
 import com.reactivetechnologies.analytics.core.CachedIncrementalClassifierBean;
+import com.reactivetechnologies.analytics.core.ParallelIncrementalClassifierBean;
 import com.reactivetechnologies.analytics.core.dto.CombinerResult;
 import com.reactivetechnologies.analytics.core.dto.RegressionModel;
+import com.reactivetechnologies.analytics.core.eval.CombinerType;
 import com.reactivetechnologies.analytics.core.handlers.MessageInterceptorBean;
 import com.reactivetechnologies.analytics.core.handlers.ModelFeederBean;
+import com.reactivetechnologies.analytics.dto.JsonRequestTypeAdapter;
+import com.reactivetechnologies.analytics.lucene.HashingVectorizer;
+import com.reactivetechnologies.analytics.lucene.TextVectorizer;
+import com.reactivetechnologies.analytics.lucene.TextVocabulary;
 import com.reactivetechnologies.analytics.mapper.DataMapperFactoryBean;
 import com.reactivetechnologies.analytics.mapper.DataMappers;
 import com.reactivetechnologies.analytics.store.ModelJdbcRepository;
@@ -79,6 +85,12 @@ public class BootstrapConfigurator {
   
   @Value("${weka.classifier.options: }")
   private String options;
+  @Value("${weka.classifier.parallel.replicas:1}")
+  private int replicas;
+  @Value("${weka.classifier.parallel.combiner:VOTING}")
+  private String replicaCombiner;
+  @Value("${weka.classifier.tokenize.options: }")
+  private String tokenizeOpts;
     
   /**
    * The core class that implements Weka functions.
@@ -93,9 +105,31 @@ public class BootstrapConfigurator {
       c.setOptions(Utils.splitOptions(options));
     }
     
+    if(replicas > 1)
+    {
+      return new ParallelIncrementalClassifierBean(c, 1000, replicas, CombinerType.valueOf(replicaCombiner));
+    }
     return new CachedIncrementalClassifierBean(c, 1000);
   }
   
+  /**
+   * Vectorizer for text. The -H (no of buckets) tokenize option selects feature hashing, else a vocabulary 
+   * shared across the cluster is used, with capacity set by the -W (words to keep) option.
+   * @return
+   * @throws Exception
+   */
+  @Bean
+  public TextVectorizer textVectorizer() throws Exception
+  {
+    String[] opts = Utils.splitOptions(tokenizeOpts);
+    String buckets = Utils.getOption('H', opts);
+    if(StringUtils.hasText(buckets))
+    {
+      return new HashingVectorizer(Integer.parseInt(buckets));
+    }
+    String words = Utils.getOption('W', opts);
+    return new TextVocabulary(hzService, StringUtils.hasText(words) ? Integer.parseInt(words) : TextVocabulary.DEFAULT_CAPACITY);
+  }
   /**
    * Factory bean to create instances of message flow, via a {@linkplain ChannelMultiplexerBean}.
    * @return
@@ -144,6 +178,7 @@ public class BootstrapConfigurator {
           
         }
       });
+      gsonWrapper.registerTypeAdapterFactory(JsonRequestTypeAdapter.FACTORY);
       log.debug("Json type adapter set.. ");
     } catch (IllegalAccessException e) {
       log.error("Json type adapter was not set", e);
@@ -12,7 +12,7 @@ public interface RegressionModelEngine extends IncrementalModelEngine
   
 	/**
 	 * Get current model
-	 * @return
+	 * @return null if no model has been built yet
 	 */
 	RegressionModel generateModelSnapshot();
 	/**
@@ -32,5 +32,12 @@ public interface RegressionModelEngine extends IncrementalModelEngine
 	 * @throws EngineException
 	 */
   ClassifiedModel classify(Dataset unclassified) throws EngineException;
+  /**
+   * Run model to get a classification for each instance in the dataset.
+   * @param unclassified
+   * @return classifications in the order of the instances
+   * @throws EngineException
+   */
+  List<ClassifiedModel> classifyAll(Dataset unclassified) throws EngineException;
 	
 }
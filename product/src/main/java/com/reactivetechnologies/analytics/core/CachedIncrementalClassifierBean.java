@@ -64,9 +64,9 @@ public class CachedIncrementalClassifierBean extends IncrementalClassifierBean {
     cacheBuiltModel();
   }
   
-  private void cacheBuiltModel()
+  protected void cacheBuiltModel()
   {
-    RegressionModel model = new RegressionModel(clazzifier);
+    RegressionModel model = new RegressionModel(getPublished());
     model.setGeneratedOn(lastBuildAt);
     hzService.setInstanceCachedValue(ConfigUtil.WEKA_MODEL_CACHE_MAP, model);
   }
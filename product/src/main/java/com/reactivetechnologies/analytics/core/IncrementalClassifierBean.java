@@ -28,18 +28,21 @@ SOFTWARE.
 */
 package com.reactivetechnologies.analytics.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -54,15 +57,17 @@ import com.reactivetechnologies.analytics.RegressionModelEngine;
 import com.reactivetechnologies.analytics.core.dto.ClassifiedModel;
 import com.reactivetechnologies.analytics.core.dto.RegressionModel;
 import com.reactivetechnologies.analytics.core.eval.CombinerType;
-import com.reactivetechnologies.analytics.lucene.TextInstanceFilter;
+import com.reactivetechnologies.analytics.lucene.TextVectorizer;
 import com.reactivetechnologies.platform.datagrid.core.HazelcastClusterServiceBean;
 
 import weka.classifiers.Classifier;
 import weka.classifiers.UpdateableClassifier;
 import weka.core.Instance;
 import weka.core.Instances;
+import weka.core.Utils;
 /**
- * A proxy over a Weka classifier.
+ * A proxy over a Weka classifier. The classifier is trained by a worker thread, while classification
+ * is done on a copy published after each build, so that scoring does not contend with training.
  */
 public class IncrementalClassifierBean extends Classifier implements RegressionModelEngine {
 
@@ -72,26 +77,130 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
   }
   @Autowired
   private HazelcastClusterServiceBean hzService;
+  @Autowired
+  private TextVectorizer vectorizer;
+  
+  private final AtomicLong checkpointSeq = new AtomicLong();
   
   /**
-   * Builds an intermediary classifier based on training data available
-   * @throws Exception
+   * Accumulates consumed datasets into a batch of instances, and builds once the batch
+   * size is reached.
    */
-  private synchronized void updateClassifier() throws Exception
+  protected class BatchTrainer
   {
-    Set<Entry<Integer, Dataset>> entries = hzService.instanceEntrySet();
-    if (!entries.isEmpty()) {
-      Instances data = null;
-      for (Entry<Integer, Dataset> entry : entries) {
-        data = new Instances(getAsInstances(entry.getValue()));
-
+    /**
+     * Training instances consumed, but not yet built.
+     */
+    private Instances batch;
+    private final List<Long> checkpoints = new ArrayList<>();
+    
+    /**
+     * Merges the next dataset into the current batch, and builds once the batch size is reached.
+     * A dataset with different attributes (say, a different vocabulary after tokenizing)
+     * triggers a build of the current batch first.
+     * @param next
+     * @throws Exception
+     */
+    public synchronized void accumulate(Dataset next) throws Exception
+    {
+      Instances data = getAsInstances(next, true);
+      if(batch != null && !batch.equalHeaders(data))
+      {
+        log.debug("[accumulate] Dataset header changed, building current batch..");
+        update();
       }
-      buildClassifier(data);
-      hzService.clearInstanceMap();
+      if(batch == null)
+      {
+        batch = new Instances(data, Math.max(instanceBatchSize, data.numInstances()));
+      }
+      for(@SuppressWarnings("unchecked")
+      Enumeration<Instance> e = data.enumerateInstances(); e.hasMoreElements();)
+      {
+        batch.add(e.nextElement());
+      }
+      checkpoint(next);
       
-      log.info("[updateClassifier] Incremental classifier build complete");
+      if(batch.numInstances() >= instanceBatchSize)
+      {
+        log.debug("[accumulate] start build..");
+        update();
+      }
+    }
+    /**
+     * Saves the dataset to the instance map, without waiting. So that untrained data is available
+     * in the cluster, without the grid write being in the training path.
+     * @param next
+     */
+    private void checkpoint(Dataset next)
+    {
+      if(checkpointBatch)
+      {
+        Long key = checkpointSeq.getAndIncrement();
+        hzService.setInstanceValueAsync(key, next);
+        checkpoints.add(key);
+      }
+    }
+    /**
+     * Removes the checkpoints for datasets already built.
+     */
+    private void releaseCheckpoints()
+    {
+      for(Long key : checkpoints)
+      {
+        hzService.removeInstanceValueAsync(key);
+      }
+      checkpoints.clear();
+    }
+    /**
+     * Builds on the training data available in the batch.
+     * @throws Exception
+     */
+    public synchronized void update() throws Exception
+    {
+      if (batch != null && batch.numInstances() > 0) {
+        Instances data = batch;
+        batch = null;
+        build(data);
+        releaseCheckpoints();
+        
+        log.info("[updateClassifier] Incremental classifier build complete on "+data.numInstances()+" instances");
+      }
+    }
+    /**
+     * Build on the given batch. By default builds this classifier.
+     * @param data
+     * @throws Exception
+     */
+    protected void build(Instances data) throws Exception
+    {
+      buildClassifier(data);
     }
-    instanceCount.compareAndSet(instanceBatchSize, 0);
+  }
+  
+  private final BatchTrainer trainer = new BatchTrainer();
+  /**
+   * Handle the next dataset consumed from the queue.
+   * @param next
+   * @throws Exception
+   */
+  protected void consume(Dataset next) throws Exception
+  {
+    trainer.accumulate(next);
+  }
+  /**
+   * Build on any training data pending. Invoked when the classifier has been idle.
+   * @throws Exception
+   */
+  protected void flush() throws Exception
+  {
+    trainer.update();
+  }
+  /**
+   * Invoked when the consumer is stopped.
+   */
+  protected void onStop()
+  {
+    
   }
   /**
    * 
@@ -105,7 +214,7 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
       {
         if (TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - lastBuildAt) >= maxIdle) {
           log.debug("[EventTimer] start run..");
-          updateClassifier();
+          flush();
           log.debug("[EventTimer] end run..");
         }
                 
@@ -132,13 +241,8 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
           if(i.isStop())
             break;
          
-          hzService.setInstanceValue(instanceCount.get(), i);
-          if(instanceCount.incrementAndGet() == instanceBatchSize)
-          {
-            log.debug("[EventConsumer] start build..");
-            updateClassifier();
-          }
-                  
+          consume(i);
+          
           
         } catch (InterruptedException e) {
           Thread.currentThread().interrupt();
@@ -147,11 +251,11 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
           log.error("[EventConsumer] Unable to update classifier!", e);
         }
       }
+      onStop();
       log.debug("Stopped Weka submitter");
     }
   }
 
-  private final AtomicInteger instanceCount = new AtomicInteger(0);
   private static final Logger log = LoggerFactory.getLogger(IncrementalClassifierBean.class);
   
   @Value("${weka.classifier.tokenize}")
@@ -164,15 +268,65 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
   private long delay;
   @Value("${weka.classifier.build.maxIdleSecs:3600}")
   private long maxIdle;
+  @Value("${weka.classifier.build.checkpoint:true}")
+  private boolean checkpointBatch;
+  @Value("${weka.classifier.score.threads:0}")
+  private int scoreThreads;
+  @Value("${weka.classifier.score.batchSize:1000}")
+  private int scoreBatchSize;
   
+  /**
+   * The classifier being trained. This is accessed by the training thread only.
+   */
   protected Classifier clazzifier;
-  private ExecutorService worker, timer;
+  /**
+   * An immutable copy of the classifier as of the last build, used for scoring.
+   */
+  private volatile Classifier published;
+  private ExecutorService worker, timer, scorer;
   protected volatile long lastBuildAt = 0;
   
+  /**
+   * Publish a classifier for scoring. The classifier should not be modified any further.
+   * @param c
+   */
+  protected void publish(Classifier c)
+  {
+    published = c;
+  }
+  /**
+   * The classifier to be used for scoring. This would be the last published classifier.
+   * @return
+   * @throws IllegalStateException if no classifier has been published yet
+   */
+  protected Classifier getPublished()
+  {
+    Classifier c = published;
+    if(c == null)
+      throw new IllegalStateException("No model has been built yet");
+    return c;
+  }
+  /**
+   * If a classifier has been published, either built or loaded from cache.
+   * @return
+   */
+  protected boolean hasPublished()
+  {
+    return published != null;
+  }
+  
   @PostConstruct
   void init()
   {
-    loadAndInitializeModel();
+    if(loadAndInitializeModel())
+    {
+      try {
+        publish(Classifier.makeCopy(clazzifier));
+      } catch (Exception e) {
+        log.warn("Unable to publish loaded classifier- "+e);
+        log.debug("", e);
+      }
+    }
     
     log.info( (isUpdateable() ? "UPDATEABLE ":"NON-UPDATEABLE ") + "** Weka Classifier loaded ["+clazzifier+"] **");
     if(log.isDebugEnabled())
@@ -182,6 +336,9 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
       log.debug("weka.classifier.build.batchSize: "+instanceBatchSize);
       log.debug("weka.classifier.build.intervalSecs: "+delay);
       log.debug("weka.classifier.build.maxIdleSecs: "+maxIdle);
+      log.debug("weka.classifier.build.checkpoint: "+checkpointBatch);
+      log.debug("weka.classifier.score.threads: "+scoreThreads);
+      log.debug("weka.classifier.score.batchSize: "+scoreBatchSize);
     }
     worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
       
@@ -193,6 +350,16 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
     });
     worker.submit(new EventConsumer());
     
+    scorer = Executors.newFixedThreadPool(scoreThreads > 0 ? scoreThreads : Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+      private int n = 0;
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "RegressionBean.Scorer.Thread-"+(n++));
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    
     timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
       
       @Override
@@ -237,15 +404,22 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
       }
       incrementModel(new Dataset(true));
       worker.shutdown();
+      scorer.shutdown();
     } catch (Exception e) {
       // ignored
     }
   }
   
-  protected Instances getAsInstances(Dataset i) throws Exception {
+  /**
+   * The dataset instances, vectorized by the {@linkplain TextVectorizer} if tokenizing.
+   * @param i
+   * @param learn whether vectorizing for training, so new words can be learnt
+   * @return
+   * @throws Exception
+   */
+  protected Instances getAsInstances(Dataset i, boolean learn) throws Exception {
     if (filterDataset) {
-      return TextInstanceFilter.filter(i.getAsInstances(), filterOpts,
-          false);
+      return vectorizer.vectorize(i.getAsInstances(), false, learn);
     }
     return i.getAsInstances();
   }
@@ -261,17 +435,8 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
   public void buildClassifier(Instances data) throws Exception {
     try 
     {
-      if(isUpdateable())
-      {
-        UpdateableClassifier u = (UpdateableClassifier) clazzifier;
-        for(@SuppressWarnings("unchecked")
-        Enumeration<Instance> e = data.enumerateInstances(); e.hasMoreElements();)
-        {
-          u.updateClassifier(e.nextElement());
-        }
-      }
-      else
-        clazzifier.buildClassifier(data);
+      train(clazzifier, data, lastBuildAt > 0);
+      publish(Classifier.makeCopy(clazzifier));
       
       lastBuildAt = System.currentTimeMillis();
     } finally {
@@ -280,6 +445,28 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
     
     
   }
+  /**
+   * Trains the classifier on the data. An {@linkplain UpdateableClassifier} already built is updated
+   * instance by instance, else the classifier is (re)built.
+   * @param c
+   * @param data
+   * @param isBuilt if the classifier has been built before
+   * @throws Exception
+   */
+  protected static void train(Classifier c, Instances data, boolean isBuilt) throws Exception
+  {
+    if(isBuilt && c instanceof UpdateableClassifier)
+    {
+      UpdateableClassifier u = (UpdateableClassifier) c;
+      for(@SuppressWarnings("unchecked")
+      Enumeration<Instance> e = data.enumerateInstances(); e.hasMoreElements();)
+      {
+        u.updateClassifier(e.nextElement());
+      }
+    }
+    else
+      c.buildClassifier(data);
+  }
 
 
   /**
@@ -294,7 +481,7 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
    */
   public double classifyInstance(Instance instance) throws Exception {
 
-    return clazzifier.classifyInstance(instance);
+    return getPublished().classifyInstance(instance);
   }
 
   /**
@@ -311,7 +498,7 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
    */
   public double[] distributionForInstance(Instance instance) throws Exception {
 
-    return clazzifier.distributionForInstance(instance);
+    return getPublished().distributionForInstance(instance);
   }
   
   /**
@@ -354,8 +541,11 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
   
   @Override
   public RegressionModel generateModelSnapshot() {
+    Classifier c = published;
+    if(c == null)
+      return null;
     RegressionModel m = new RegressionModel();
-    m.setTrainedClassifier(clazzifier);
+    m.setTrainedClassifier(c);
     return m;
   }
       
@@ -363,13 +553,86 @@ public class IncrementalClassifierBean extends Classifier implements RegressionM
   public ClassifiedModel classify(Dataset unclassified) throws EngineException {
     ClassifiedModel model = new ClassifiedModel();
     try {
-      model.setClassified(classifyInstance(unclassified.getAsInstance()));
+      model.setClassified(classifyInstance(getAsInstances(unclassified, false).firstInstance()));
     } catch (Exception e) {
       throw new EngineException(e);
     }
       
     return model;
   }
+  /**
+   * Classifies instances [from, to) of the dataset into the result array.
+   * @param data
+   * @param from
+   * @param to
+   * @param results
+   * @throws Exception
+   */
+  private void classify(Instances data, int from, int to, ClassifiedModel[] results) throws Exception
+  {
+    boolean nominal = data.classIndex() >= 0 && data.classAttribute().isNominal();
+    for(int i=from; i<to; i++)
+    {
+      double[] dist = distributionForInstance(data.instance(i));
+      ClassifiedModel model = new ClassifiedModel();
+      model.setDistribution(dist);
+      if(nominal)
+      {
+        model.setClassified(Utils.sum(dist) > 0 ? Utils.maxIndex(dist) : Instance.missingValue());
+      }
+      else
+        model.setClassified(dist[0]);
+      
+      results[i] = model;
+    }
+  }
+  /**
+   * Classifies all instances of the dataset. Large datasets are split into batches of
+   * {@link #scoreBatchSize} instances, classified in parallel.
+   */
+  @Override
+  public List<ClassifiedModel> classifyAll(Dataset unclassified) throws EngineException {
+    try 
+    {
+      final Instances data = getAsInstances(unclassified, false);
+      final ClassifiedModel[] results = new ClassifiedModel[data.numInstances()];
+      if(results.length <= scoreBatchSize)
+      {
+        classify(data, 0, results.length, results);
+      }
+      else
+      {
+        List<Future<Void>> tasks = new ArrayList<>();
+        for(int i=0; i<results.length; i+=scoreBatchSize)
+        {
+          final int from = i, to = Math.min(i+scoreBatchSize, results.length);
+          tasks.add(scorer.submit(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+              classify(data, from, to, results);
+              return null;
+            }
+          }));
+        }
+        for(Future<Void> f : tasks)
+        {
+          f.get();
+        }
+      }
+      return Arrays.asList(results);
+    } 
+    catch (ExecutionException e) {
+      throw new EngineException(e.getCause());
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new EngineException(e);
+    }
+    catch (Exception e) {
+      throw new EngineException(e);
+    }
+  }
   
   @Override
   public RegressionModel findBestFitModel(List<RegressionModel> models, CombinerType combiner, Dataset evaluationSet) throws EngineException {
@@ -0,0 +1,312 @@
+/* ============================================================================
+*
+* FILE: ParallelIncrementalClassifierBean.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.analytics.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.reactivetechnologies.analytics.EngineException;
+import com.reactivetechnologies.analytics.core.eval.CombinerType;
+
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+/**
+ * An incremental classifier which trains a number of classifiers concurrently, each on its own
+ * shard of the consumed datasets. The shards are assigned round robin. The trained classifiers are
+ * merged using a {@linkplain CombinerType} on a merge thread, after a shard build. The merged classifier
+ * is then published, so scoring never waits on a merge.
+ */
+public class ParallelIncrementalClassifierBean extends CachedIncrementalClassifierBean {
+
+  private static final Logger log = LoggerFactory.getLogger(ParallelIncrementalClassifierBean.class);
+  /**
+   * 
+   */
+  private static final long serialVersionUID = -2185904744651398127L;
+  /**
+   * Every n-th consumed instance is held out of training, to evaluate the merge.
+   */
+  static final int HOLDOUT_EVERY = 10;
+  /**
+   * Maximum no of held out instances kept.
+   */
+  static final int HOLDOUT_SIZE = 1000;
+  
+  /**
+   * A classifier trained on a shard of the consumed datasets, by its own thread.
+   */
+  private class Shard extends BatchTrainer implements Runnable
+  {
+    private final Classifier classifier;
+    private final ArrayBlockingQueue<Dataset> queue;
+    /**
+     * A copy of the classifier, as of the last build. This is the one used for merging,
+     * so that training can proceed independently.
+     */
+    private volatile Classifier built;
+    private volatile Instances lastBatch;
+    
+    Shard(Classifier classifier, int size) {
+      this.classifier = classifier;
+      queue = new ArrayBlockingQueue<>(size);
+    }
+    @Override
+    protected void build(Instances data) throws Exception {
+      train(classifier, holdOut(data), built != null);
+      built = Classifier.makeCopy(classifier);
+      lastBatch = data;
+      lastBuildAt = System.currentTimeMillis();
+      requestMerge();
+    }
+    @Override
+    public void run() {
+      while(true)
+      {
+        try 
+        {
+          Dataset i = queue.take();
+          
+          if(i.isStop())
+            break;
+         
+          accumulate(i);
+          
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          log.debug("[Shard] Interrupted. Stopping", e);
+          break;
+        } catch (Exception e) {
+          log.error("[Shard] Unable to update classifier!", e);
+        }
+      }
+    }
+  }
+  
+  private final Shard[] shards;
+  private final CombinerType combiner;
+  @Value("${weka.classifier.parallel.combiner.options: }")
+  private String combinerOpts;
+  private ExecutorService shardWorkers, merger;
+  private int nextShard = 0;
+  /**
+   * The classifier published before any shard was built, i.e loaded from cache. It is kept as a
+   * member of every merge, since the shards have not been trained on its data.
+   */
+  private Classifier base;
+  private final AtomicBoolean mergePending = new AtomicBoolean();
+  private final AtomicLong consumed = new AtomicLong();
+  private Instances holdout;
+  /**
+   * Train copies of the given classifier in parallel.
+   * @param c base classifier
+   * @param size size of blocking queue
+   * @param replicas no of classifier copies
+   * @param combiner to merge the copies
+   * @throws Exception if the classifier could not be copied
+   */
+  public ParallelIncrementalClassifierBean(Classifier c, int size, int replicas, CombinerType combiner) throws Exception {
+    this(c, Classifier.makeCopies(c, replicas), size, combiner);
+  }
+  /**
+   * Train the given, possibly differently configured, classifiers in parallel.
+   * @param c base classifier. It is not used for scoring, which fails till the first merge
+   * @param classifiers classifiers to train
+   * @param size size of blocking queue
+   * @param combiner to merge the classifiers
+   */
+  public ParallelIncrementalClassifierBean(Classifier c, Classifier[] classifiers, int size, CombinerType combiner) {
+    super(c, size);
+    this.combiner = combiner;
+    shards = new Shard[classifiers.length];
+    for(int i=0; i<classifiers.length; i++)
+    {
+      shards[i] = new Shard(classifiers[i], size);
+    }
+  }
+  
+  @PostConstruct
+  void initShards()
+  {
+    if(hasPublished())
+    {
+      base = getPublished();
+      log.info("** Cached classifier will be merged with the shard classifiers **");
+    }
+    shardWorkers = Executors.newFixedThreadPool(shards.length, new ThreadFactory() {
+      private int n = 0;
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "RegressionBean.Shard.Thread-"+(n++));
+        return t;
+      }
+    });
+    merger = Executors.newSingleThreadExecutor(new ThreadFactory() {
+      
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "RegressionBean.Merger.Thread");
+        return t;
+      }
+    });
+    for(Shard s : shards)
+    {
+      shardWorkers.submit(s);
+    }
+    log.info("** Training on "+shards.length+" shards, to be merged by "+combiner+" **");
+  }
+  
+  @Override
+  protected void consume(Dataset next) throws Exception {
+    shards[nextShard].queue.put(next);
+    nextShard = (nextShard + 1) % shards.length;
+  }
+  
+  @Override
+  protected void flush() throws Exception {
+    for(Shard s : shards)
+    {
+      s.update();
+    }
+  }
+  
+  @Override
+  protected void onStop() {
+    for(Shard s : shards)
+    {
+      try {
+        s.queue.put(new Dataset(true));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    shardWorkers.shutdown();
+    merger.shutdown();
+    try {
+      shardWorkers.awaitTermination(30, TimeUnit.SECONDS);
+      merger.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+  
+  /**
+   * Moves every {@value #HOLDOUT_EVERY}th instance of the batch to the holdout set, and returns the rest
+   * for training. The holdout set is reset if the dataset header changes.
+   * @param data
+   * @return
+   */
+  private Instances holdOut(Instances data)
+  {
+    Instances train = new Instances(data, data.numInstances());
+    synchronized (this) {
+      if(holdout == null || !holdout.equalHeaders(data))
+        holdout = new Instances(data, HOLDOUT_SIZE);
+      
+      for(int i=0; i<data.numInstances(); i++)
+      {
+        if(consumed.getAndIncrement() % HOLDOUT_EVERY == 0)
+        {
+          if(holdout.numInstances() == HOLDOUT_SIZE)
+            holdout.delete(0);
+          holdout.add(data.instance(i));
+        }
+        else
+          train.add(data.instance(i));
+      }
+    }
+    return train.numInstances() > 0 ? train : data;
+  }
+  /**
+   * Schedules a merge on the merge thread, unless one is already pending.
+   */
+  private void requestMerge()
+  {
+    if(mergePending.compareAndSet(false, true))
+    {
+      merger.submit(new Runnable() {
+        
+        @Override
+        public void run() {
+          mergePending.set(false);
+          try {
+            merge();
+          } catch (Exception e) {
+            log.error("[merge] Unable to merge shard classifiers. Scoring continues with the last merged classifier", e);
+          }
+        }
+      });
+    }
+  }
+  
+  /**
+   * Merges the shard classifiers built so far, along with any classifier loaded from cache.
+   * The merged classifier is published and cached in the cluster. Invoked on the merge thread only.
+   * @throws EngineException
+   */
+  private void merge() throws EngineException
+  {
+    List<Classifier> built = new ArrayList<>(shards.length + 1);
+    if(base != null)
+      built.add(base);
+    
+    Instances evaluationSet = null;
+    for(Shard s : shards)
+    {
+      if(s.built != null)
+      {
+        built.add(s.built);
+        evaluationSet = s.lastBatch;
+      }
+    }
+    if(evaluationSet == null)
+      return;
+    
+    synchronized (this) {
+      if(holdout != null && holdout.numInstances() > 0 && holdout.equalHeaders(evaluationSet))
+        evaluationSet = new Instances(holdout);
+    }
+    
+    publish(combiner.getBestFitClassifier(built.toArray(new Classifier[built.size()]), evaluationSet, combinerOpts));
+    cacheBuiltModel();
+    log.info("[merge] Merged "+built.size()+" classifiers, evaluated on "+evaluationSet.numInstances()+" instances");
+  }
+}
@@ -43,5 +43,16 @@ public class ClassifiedModel implements Serializable {
   public void setClassified(Double classified) {
     this.classified = classified;
   }
+  private double[] distribution;
+  /**
+   * Class membership probabilities, or the predicted value for a numeric class.
+   * @return
+   */
+  public double[] getDistribution() {
+    return distribution;
+  }
+  public void setDistribution(double[] distribution) {
+    this.distribution = distribution;
+  }
 
 }
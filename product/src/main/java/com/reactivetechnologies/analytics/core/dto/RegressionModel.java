@@ -1,8 +1,9 @@
 package com.reactivetechnologies.analytics.core.dto;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
-import java.nio.charset.StandardCharsets;
 
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
@@ -11,11 +12,13 @@ import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.DataSerializable;
 import com.hazelcast.util.HashUtil;
-import com.hazelcast.util.MD5Util;
 import com.reactivetechnologies.analytics.OperationFailedUnexpectedly;
+import com.reactivetechnologies.platform.utils.Digestor;
+import com.reactivetechnologies.platform.utils.PayloadCodec;
 
 import weka.classifiers.Classifier;
 import weka.core.Instances;
+import weka.core.SerializationHelper;
 import weka.core.xml.XStream;
 
 
@@ -32,23 +35,36 @@ public class RegressionModel implements DataSerializable,Serializable
 	
 	public RegressionModel(Classifier trainedClassifier) {
     super();
-    this.trainedClassifier = trainedClassifier;
+    setTrainedClassifier(trainedClassifier);
   }
   public RegressionModel(String trainedClassifier) throws IOException {
     super();
     Assert.notNull(trainedClassifier, "Serialized classifier is null");
     deserializeClassifierFromJson(trainedClassifier);
   }
+  /**
+   * The classifier. If it is updated in place, {@link #invalidateSerialized()} should be invoked
+   * so that the update is serialized.
+   * @return
+   */
   public Classifier getTrainedClassifier()
-	{
-		return trainedClassifier;
-	}
+  {
+    return trainedClassifier;
+  }
+  /**
+   * Discard the serialized bytes computed so far, as the classifier has been updated in place.
+   */
+  public void invalidateSerialized()
+  {
+    classifierBytes = null;
+  }
 
 	private String classifierImpl;
 	public void setTrainedClassifier(Classifier trainedClassifier)
 	{
 		this.trainedClassifier = trainedClassifier;
 		classifierImpl = trainedClassifier.getClass().getName();
+		classifierBytes = null;
 	}
 	private long murmurHash;
 	private String md5Hex;
@@ -88,9 +104,66 @@ public class RegressionModel implements DataSerializable,Serializable
 		this.results = results;
 	}
 
-	/* (non-Javadoc)
-   * @see com.ericsson.fmt.forecasting.engine.impl.RegressionModel#writeClassifierAsXml()
+  /**
+   * Codec to compress the serialized classifier with, when written to the data grid.
+   * @return
+   */
+  public PayloadCodec getCodec() {
+    return codec;
+  }
+
+  public void setCodec(PayloadCodec codec) {
+    this.codec = codec;
+  }
+  /**
+   * The classifier in Java serialized form. The bytes are computed once and reused for
+   * {@linkplain #generateId() id generation} and grid serialization, till the classifier is set again
+   * or {@linkplain #invalidateSerialized() invalidated}.
+   * @return
+   * @throws IOException
+   */
+  public byte[] serializeClassifier() throws IOException
+  {
+    if(classifierBytes == null)
+    {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+      try {
+        SerializationHelper.write(bytes, trainedClassifier);
+      } catch (Exception e) {
+        if(e instanceof IOException)
+          throw (IOException)e;
+        else
+          throw new OperationFailedUnexpectedly(e);
+      }
+      classifierBytes = bytes.toByteArray();
+    }
+    return classifierBytes;
+  }
+  /**
+   * Read the classifier from Java serialized form.
+   * @param bytes
+   * @return
+   * @throws IOException
    */
+  public Classifier deserializeClassifier(byte[] bytes) throws IOException
+  {
+    try {
+      trainedClassifier = (Classifier) SerializationHelper.read(new ByteArrayInputStream(bytes));
+    } catch (Exception e) {
+      if(e instanceof IOException)
+        throw (IOException)e;
+      else
+        throw new IOException(e);
+    }
+    classifierImpl = trainedClassifier.getClass().getName();
+    classifierBytes = bytes;
+    return trainedClassifier;
+  }
+	/**
+	 * Export the classifier as XStream xml. This is a verbose format, and is not used for grid serialization.
+	 * @return
+	 * @throws IOException
+	 */
 	public String serializeClassifierAsJson() throws IOException
 	{
 	  try {
@@ -102,9 +175,12 @@ public class RegressionModel implements DataSerializable,Serializable
         throw new OperationFailedUnexpectedly(e);
     }
 	}
-	/* (non-Javadoc)
-   * @see com.ericsson.fmt.forecasting.engine.impl.RegressionModel#readClassifierAsXml(java.lang.String)
-   */
+	/**
+	 * Import the classifier from XStream xml.
+	 * @param xmlString
+	 * @return
+	 * @throws IOException
+	 */
 	public Classifier deserializeClassifierFromJson(String xmlString) throws IOException
   {
     try 
@@ -127,6 +203,8 @@ public class RegressionModel implements DataSerializable,Serializable
   private transient Instances trainingSet;
   private String name;
   private transient double [] results;
+  private transient byte[] classifierBytes;
+  private PayloadCodec codec = PayloadCodec.LZ4;
   //private double pctIncorrect;
   //private int folds = 0;
   
@@ -140,7 +218,7 @@ public class RegressionModel implements DataSerializable,Serializable
       //out.writeInt(getFolds());
       out.writeUTF(getName());
       out.writeUTF(classifierImpl);
-      out.writeUTF(serializeClassifierAsJson());
+      codec.write(out, serializeClassifier());
       out.writeLong(murmurHash);
       out.writeUTF(md5Hex);
       out.writeLong(getGeneratedOn());
@@ -162,7 +240,9 @@ public class RegressionModel implements DataSerializable,Serializable
       //setFolds(in.readInt());
       setName(in.readUTF());
       classifierImpl = in.readUTF();
-      deserializeClassifierFromJson(in.readUTF());
+      byte[] bytes = PayloadCodec.read(in);
+      if(bytes != null)
+        deserializeClassifier(bytes);
       setLongId(in.readLong());
       setStringId(in.readUTF());
       setGeneratedOn(in.readLong());
@@ -172,7 +252,7 @@ public class RegressionModel implements DataSerializable,Serializable
   }
 
   /**
-   * Generates different ids, by creating a murmur hash on the serialized string
+   * Generates different ids, by creating a murmur hash and a md5 digest on the serialized
    * form of the classifier.
    */
   public void generateId()
@@ -180,9 +260,9 @@ public class RegressionModel implements DataSerializable,Serializable
     byte[] bytes = null;
     try 
     {
-      bytes = serializeClassifierAsJson().getBytes(StandardCharsets.UTF_8);
+      bytes = serializeClassifier();
       murmurHash = HashUtil.MurmurHash3_x64_64(bytes, 0, bytes.length);
-      md5Hex = MD5Util.toMD5String(getTrainedClassifier().toString()+murmurHash);
+      md5Hex = Digestor.md5().addBytes(bytes, 0, bytes.length).toHexString();
     } catch (Exception e) {
       e.printStackTrace();
       murmurHash = -1;
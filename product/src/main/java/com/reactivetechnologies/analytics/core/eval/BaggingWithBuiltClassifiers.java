@@ -53,6 +53,41 @@ class BaggingWithBuiltClassifiers extends Bagging {
   {
     m_Classifiers = Classifier.makeCopies(m_Classifier, getNumIterations());
   }
+  private int numSlots = 1;
+  /**
+   * No of threads to compute the out of bag predictions of the classifiers in parallel.
+   * @param numSlots 1 for sequential, 0 for the no of processors
+   */
+  void setNumSlots(int numSlots) {
+    this.numSlots = numSlots;
+  }
+  /**
+   * The out of bag predictions of each classifier, as class value for numeric class, else distribution.
+   * @param data
+   * @param inBag
+   * @return
+   * @throws Exception
+   */
+  private double[][][] outOfBagPredictions(final Instances data, final boolean[][] inBag) throws Exception
+  {
+    final double[][][] predictions = new double[m_Classifiers.length][data.numInstances()][];
+    final boolean numeric = data.classAttribute().isNumeric();
+    ForkJoinTasks.forEach(m_Classifiers.length, numSlots, new ForkJoinTasks.IndexedTask() {
+      
+      @Override
+      public void run(int j) throws Exception {
+        for (int i = 0; i < data.numInstances(); i++) {
+          if (inBag[j][i])
+            continue;
+          if (numeric)
+            predictions[j][i] = new double[]{m_Classifiers[j].classifyInstance(data.instance(i))};
+          else
+            predictions[j][i] = m_Classifiers[j].distributionForInstance(data.instance(i));
+        }
+      }
+    });
+    return predictions;
+  }
   @Override
   public void buildClassifier(Instances data) throws Exception {
 
@@ -110,6 +145,9 @@ class BaggingWithBuiltClassifiers extends Bagging {
       double outOfBagCount = 0.0;
       double errorSum = 0.0;
       boolean numeric = data.classAttribute().isNumeric();
+      /** Changed here: Predict in parallel */
+      double[][][] predictions = outOfBagPredictions(data, inBag);
+      /** End change */
 
       for (int i = 0; i < data.numInstances(); i++) {
         double vote;
@@ -129,11 +167,10 @@ class BaggingWithBuiltClassifiers extends Bagging {
           // double pred = m_Classifiers[j].classifyInstance(data.instance(i));
           if (numeric) {
             // votes[0] += pred;
-            votes[0] += m_Classifiers[j].classifyInstance(data.instance(i));
+            votes[0] += predictions[j][i][0];
           } else {
             // votes[(int) pred]++;
-            double[] newProbs = m_Classifiers[j].distributionForInstance(data
-                .instance(i));
+            double[] newProbs = predictions[j][i];
             // average the probability estimates
             for (int k = 0; k < newProbs.length; k++) {
               votes[k] += newProbs[k];
@@ -69,7 +69,9 @@ public enum CombinerType {
       if(StringUtils.hasText(optionStr))
       {
         try {
-          adaBoosted.setOptions(Utils.splitOptions(optionStr));
+          String[] options = Utils.splitOptions(optionStr);
+          adaBoosted.setNumSlots(numSlots(options));
+          adaBoosted.setOptions(options);
         } catch (Exception e) {
           throw new EngineException(e);
         }
@@ -87,15 +89,18 @@ public enum CombinerType {
     @Override
     public Classifier getBestFitClassifier(Classifier[] classifiers, Instances instances, String optionStr) throws EngineException {
       StackingWithBuiltClassifiers s = new StackingWithBuiltClassifiers();
-      s.setClassifiers(classifiers);
       if(StringUtils.hasText(optionStr))
       {
         try {
-          s.setOptions(Utils.splitOptions(optionStr));
+          String[] options = Utils.splitOptions(optionStr);
+          s.setNumSlots(numSlots(options));
+          s.setOptions(options);
         } catch (Exception e) {
           throw new EngineException(e);
         }
       }
+      //set after the options, which would otherwise reset them
+      s.setClassifiers(classifiers);
       try {
         s.buildClassifier(instances);
       } catch (Exception e) {
@@ -133,22 +138,29 @@ public enum CombinerType {
       return eval;
     }
     @Override
-    public Classifier getBestFitClassifier(Classifier[] classifiers, Instances instances, String optionStr) throws EngineException {
+    public Classifier getBestFitClassifier(final Classifier[] classifiers, final Instances instances, String optionStr) throws EngineException {
+      final double[] rmse = new double[classifiers.length];
+      try 
+      {
+        int slots = StringUtils.hasText(optionStr) ? numSlots(Utils.splitOptions(optionStr)) : 1;
+        ForkJoinTasks.forEach(classifiers.length, slots, new ForkJoinTasks.IndexedTask() {
+          
+          @Override
+          public void run(int index) throws Exception {
+            rmse[index] = evaluateClassifier(classifiers[index], instances).rootMeanSquaredError();
+          }
+        });
+      } catch (Exception e) {
+        throw new EngineException("Exception while evaluating model", e);
+      }
       Classifier bestFit = null;
       double rms = Double.MAX_VALUE;
-      for(Classifier cl : classifiers)
+      for(int i=0; i<classifiers.length; i++)
       {
-        try 
+        if(rmse[i] < rms)
         {
-          Evaluation eval = evaluateClassifier(cl, instances);
-          double d = eval.rootMeanSquaredError();
-          if(d < rms)
-          {
-            rms = d;
-            bestFit = cl;
-          }
-        } catch (Exception e) {
-          throw new EngineException("Exception while evaluating model", e);
+          rms = rmse[i];
+          bestFit = classifiers[i];
         }
       }
       return bestFit;
@@ -163,5 +175,17 @@ public enum CombinerType {
    * @throws EngineException
    */
   public abstract Classifier getBestFitClassifier(Classifier[] classifiers, Instances instances, String optionStr) throws EngineException;
+  /**
+   * Removes the -num-slots option, which sets the no of threads to work on the classifiers in parallel, 
+   * for evaluation, out of bag voting and stacking. Default 1, which is sequential. 0 uses the no of processors.
+   * @param options
+   * @return
+   * @throws Exception
+   */
+  private static int numSlots(String[] options) throws Exception
+  {
+    String slots = Utils.getOption("num-slots", options);
+    return StringUtils.hasText(slots) ? Integer.parseInt(slots) : 1;
+  }
   
 }
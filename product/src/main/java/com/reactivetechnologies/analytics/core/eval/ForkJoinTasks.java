@@ -0,0 +1,118 @@
+/* ============================================================================
+*
+* FILE: ForkJoinTasks.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.analytics.core.eval;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+/**
+ * Runs a task for each index of a range in a fork join pool. The range is split in halves till a single index
+ * is left, so that each classifier of an ensemble can be worked on in parallel.
+ */
+class ForkJoinTasks {
+
+  private ForkJoinTasks(){}
+  /**
+   * Task for an index, typically of a classifier.
+   */
+  interface IndexedTask
+  {
+    void run(int index) throws Exception;
+  }
+  
+  private static class TaskException extends RuntimeException
+  {
+    private static final long serialVersionUID = 1L;
+    TaskException(Throwable cause) {
+      super(cause);
+    }
+  }
+  
+  private static class RangeAction extends RecursiveAction
+  {
+    private static final long serialVersionUID = 1L;
+    private final IndexedTask task;
+    private final int from, to;
+    
+    RangeAction(IndexedTask task, int from, int to) {
+      this.task = task;
+      this.from = from;
+      this.to = to;
+    }
+    @Override
+    protected void compute() {
+      if(to - from == 1)
+      {
+        try {
+          task.run(from);
+        } catch (Exception e) {
+          throw new TaskException(e);
+        }
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(new RangeAction(task, from, mid), new RangeAction(task, mid, to));
+    }
+  }
+  /**
+   * Run the task for each index from 0 till size.
+   * @param size
+   * @param slots no of parallel threads. 1 runs the tasks in order in the calling thread, and 0 or less uses
+   * the no of processors
+   * @param task
+   * @throws Exception the first exception from a task
+   */
+  static void forEach(int size, int slots, IndexedTask task) throws Exception
+  {
+    if(slots == 1 || size <= 1)
+    {
+      for(int i=0; i<size; i++)
+      {
+        task.run(i);
+      }
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(slots > 0 ? slots : Runtime.getRuntime().availableProcessors());
+    try 
+    {
+      pool.invoke(new RangeAction(task, 0, size));
+    } 
+    catch (TaskException e) {
+      Throwable cause = e;
+      //the pool may rethrow a copy of the task exception, wrapping the original
+      while(cause instanceof TaskException)
+        cause = cause.getCause();
+      if(cause instanceof Exception)
+        throw (Exception) cause;
+      throw e;
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -30,7 +30,9 @@ package com.reactivetechnologies.analytics.core.eval;
 
 import java.util.Random;
 
+import weka.classifiers.Classifier;
 import weka.classifiers.meta.Stacking;
+import weka.core.Instance;
 import weka.core.Instances;
 
 class StackingWithBuiltClassifiers extends Stacking {
@@ -39,6 +41,46 @@ class StackingWithBuiltClassifiers extends Stacking {
    * 
    */
   private static final long serialVersionUID = 1L;
+  private int numSlots = 1;
+  /**
+   * No of threads to classify the meta level instances with the classifiers in parallel.
+   * @param numSlots 1 for sequential, 0 for the no of processors
+   */
+  void setNumSlots(int numSlots) {
+    this.numSlots = numSlots;
+  }
+  /**
+   * The meta level values of the instances, same as {@link #metaInstance(Instance)}. Each classifier fills
+   * in its own columns.
+   * @param instances
+   * @return
+   * @throws Exception
+   */
+  private double[][] metaValues(final Instances instances) throws Exception
+  {
+    final double[][] values = new double[instances.numInstances()][m_MetaFormat.numAttributes()];
+    final boolean numeric = m_BaseFormat.classAttribute().isNumeric();
+    final int width = numeric ? 1 : m_BaseFormat.numClasses();
+    ForkJoinTasks.forEach(m_Classifiers.length, numSlots, new ForkJoinTasks.IndexedTask() {
+      
+      @Override
+      public void run(int k) throws Exception {
+        Classifier classifier = getClassifier(k);
+        for (int i = 0; i < values.length; i++) {
+          if (numeric) {
+            values[i][k] = classifier.classifyInstance(instances.instance(i));
+          } else {
+            double[] dist = classifier.distributionForInstance(instances.instance(i));
+            System.arraycopy(dist, 0, values[i], k * width, dist.length);
+          }
+        }
+      }
+    });
+    for (int i = 0; i < values.length; i++) {
+      values[i][values[i].length - 1] = instances.instance(i).classValue();
+    }
+    return values;
+  }
 
   /**
    * Buildclassifier selects a classifier from the set of classifiers
@@ -93,6 +135,8 @@ class StackingWithBuiltClassifiers extends Stacking {
 
     Instances metaData = metaFormat(newData);
     m_MetaFormat = new Instances(metaData, 0);
+    /** Changed here: Collect the test folds, to classify in parallel */
+    final Instances tests = new Instances(newData, newData.numInstances());
     for (int j = 0; j < m_NumFolds; j++) {
       
 
@@ -107,9 +151,16 @@ class StackingWithBuiltClassifiers extends Stacking {
       // Classify test instances and add to meta data
       Instances test = newData.testCV(m_NumFolds, j);
       for (int i = 0; i < test.numInstances(); i++) {
-  metaData.add(metaInstance(test.instance(i)));
+        tests.add(test.instance(i));
       }
     }
+    double[][] values = metaValues(tests);
+    for (int i = 0; i < values.length; i++) {
+      Instance metaInstance = new Instance(1, values[i]);
+      metaInstance.setDataset(m_MetaFormat);
+      metaData.add(metaInstance);
+    }
+    /** End change */
 
     m_MetaClassifier.buildClassifier(metaData);
   }
@@ -28,7 +28,10 @@ SOFTWARE.
 */
 package com.reactivetechnologies.analytics.core.handlers;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 
 import javax.annotation.PostConstruct;
 
@@ -37,10 +40,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
+import com.google.gson.stream.JsonReader;
 import com.hazelcast.internal.ascii.rest.RestValue;
 import com.hazelcast.util.StringUtil;
 import com.reactivetechnologies.analytics.core.Dataset;
 import com.reactivetechnologies.analytics.dto.JsonRequest;
+import com.reactivetechnologies.analytics.dto.JsonRequestTypeAdapter;
 import com.reactivetechnologies.analytics.dto.Text;
 import com.reactivetechnologies.analytics.mapper.DataMapper;
 import com.reactivetechnologies.analytics.utils.ConfigUtil;
@@ -119,9 +124,10 @@ public class MessageInterceptorBean extends AbstractInboundInterceptor<RestValue
       log.debug(StringUtil.bytesToString(_new.getValue()));
       log.debug("-- End message --");
     }
-    try 
+    //read the json from the raw bytes, without decoding to a string first
+    try(JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(_new.getValue()), StandardCharsets.UTF_8)))
     {
-      JsonRequest jr = gsonWrapper.get().fromJson(StringUtil.bytesToString(_new.getValue()), JsonRequest.class);
+      JsonRequest jr = new JsonRequestTypeAdapter(gsonWrapper.get()).read(reader);
       jr.setClassVars(classVars.split(","));
       return mapper.mapStringToModel(jr);
     } catch (Exception e) {
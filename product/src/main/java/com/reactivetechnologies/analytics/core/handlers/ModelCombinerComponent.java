@@ -200,9 +200,14 @@ public class ModelCombinerComponent implements MessageChannel<Byte> {
   private void dumpClassifierSnapshot() 
   {
     RegressionModel model = classifierBean.generateModelSnapshot();
-    log.debug("Dumping model:: "+model.getTrainedClassifier());
-    //TODO: model.serializeClassifierAsJson();
-    hzService.addToSet(ConfigUtil.WEKA_MODEL_SNAPSHOT_SET, model);
+    if(model != null)
+    {
+      log.debug("Dumping model:: "+model.getTrainedClassifier());
+      //TODO: model.serializeClassifierAsJson();
+      hzService.addToSet(ConfigUtil.WEKA_MODEL_SNAPSHOT_SET, model);
+    }
+    else
+      log.info("No model built yet. Nothing to dump");
     sendMessage(DUMP_MODEL_RES);
   }
   @Override
@@ -32,6 +32,10 @@ import org.springframework.util.StringUtils;
 
 public class ArffJsonRequest extends JsonRequest {
 
+  public ArffJsonRequest() {
+    super();
+    type = "ARFF";
+  }
   public String getType() {
     return "ARFF";
   }
@@ -0,0 +1,136 @@
+/* ============================================================================
+*
+* FILE: JsonRequestTypeAdapter.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.analytics.dto;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+/**
+ * Reads a {@linkplain JsonRequest} from a json stream in a single pass. An {@linkplain ArffJsonRequest}
+ * is returned for the ARFF type, so the request need not be parsed to a tree first to find its type.
+ */
+public class JsonRequestTypeAdapter extends TypeAdapter<JsonRequest> {
+
+  /**
+   * Factory to register the adapter for {@linkplain JsonRequest} declared types.
+   */
+  public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      if(type.getRawType() != JsonRequest.class)
+        return null;
+      return (TypeAdapter<T>) new JsonRequestTypeAdapter(gson, gson.getDelegateAdapter(this, TypeToken.get(JsonRequest.class)));
+    }
+  };
+  private final Gson gson;
+  private final TypeAdapter<JsonRequest> delegate;
+  /**
+   * 
+   * @param gson for the nested elements
+   */
+  public JsonRequestTypeAdapter(Gson gson) {
+    this(gson, null);
+  }
+  private JsonRequestTypeAdapter(Gson gson, TypeAdapter<JsonRequest> delegate) {
+    this.gson = gson;
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void write(JsonWriter out, JsonRequest value) throws IOException {
+    if(delegate != null && value != null && value.getClass() == JsonRequest.class)
+      delegate.write(out, value);
+    else
+      gson.toJson(value, value != null ? value.getClass() : JsonRequest.class, out);
+  }
+
+  @Override
+  public JsonRequest read(JsonReader in) throws IOException {
+    if(in.peek() == JsonToken.NULL)
+    {
+      in.nextNull();
+      return null;
+    }
+    ArffJsonRequest arff = new ArffJsonRequest();
+    String type = null;
+    in.beginObject();
+    while(in.hasNext())
+    {
+      String name = in.nextName();
+      if(in.peek() == JsonToken.NULL)
+      {
+        in.nextNull();
+        continue;
+      }
+      switch(name)
+      {
+        case "type":
+          type = in.nextString();
+          break;
+        case "data":
+          arff.setData(gson.<Text[]>fromJson(in, Text[].class));
+          break;
+        case "classVars":
+          arff.setClassVars(gson.<String[]>fromJson(in, String[].class));
+          break;
+        case "attributes":
+          arff.setAttributes(gson.<Attribute[]>fromJson(in, Attribute[].class));
+          break;
+        case "relation":
+          arff.setRelation(in.nextString());
+          break;
+        case "classIndex":
+          arff.setClassIndex(in.nextInt());
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    
+    if("ARFF".equals(type))
+      return arff;
+    
+    JsonRequest request = new JsonRequest();
+    request.setData(arff.getData());
+    request.setClassVars(arff.getClassVars());
+    if(type != null)
+      request.setType(type);
+    return request;
+  }
+
+}
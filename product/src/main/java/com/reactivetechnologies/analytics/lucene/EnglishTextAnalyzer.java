@@ -20,7 +20,6 @@
 package com.reactivetechnologies.analytics.lucene;
 
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -39,54 +38,72 @@ import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.util.CharArraySet;
 import org.tartarus.snowball.ext.EnglishStemmer;
 
+/**
+ * Lucene analyzer for english text. A single shared instance is used, which reuses its token stream
+ * components per thread.
+ */
 class EnglishTextAnalyzer extends Analyzer {
   
-  private final static Set<String> characters = new HashSet<>();
+  /**
+   * Callback for tokens, as they are streamed from the analyzer.
+   */
+  interface TokenCallback
+  {
+    void onToken(String token);
+  }
+  
+  private final static CharArraySet stopWords;
   static{
+    Set<String> characters = new HashSet<>();
     for(char i=32; i<=126; i++)
     {
       characters.add(Character.toString(i));
     }
+    CharArraySet set = CharArraySet.copy(characters);
+    set.addAll(StopAnalyzer.ENGLISH_STOP_WORDS_SET);
+    stopWords = CharArraySet.unmodifiableSet(set);
   }
+  private static final EnglishTextAnalyzer instance = new EnglishTextAnalyzer();
+  
   private EnglishTextAnalyzer(){}
   /**
-   * 
-   * @param analyzer
+   * Stream the tokens of the string to the callback. Tokens may repeat.
    * @param string
-   * @return
+   * @param callback
    * @throws IOException
    */
-  static Set<String> getTokens(String string) throws IOException {
-    Set<String> result = new HashSet<String>();
-    TokenStream stream = null;
-    Analyzer analyzer = new EnglishTextAnalyzer();
-    try 
+  static void tokenize(String string, TokenCallback callback) throws IOException {
+    try(TokenStream stream = instance.tokenStream(null, string))
     {
-      stream  = analyzer.tokenStream(null, new StringReader(string));
+      CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
       stream.reset();
       while (stream.incrementToken()) {
-        result.add(stream.getAttribute(CharTermAttribute.class).toString());
+        callback.onToken(term.toString());
       }
-      
-    } catch (IOException e) {
-      throw e;
+      stream.end();
     }
-    finally
-    {
-      if (stream != null) {
-        stream.end();
-        stream.close();
+  }
+  /**
+   * 
+   * @param string
+   * @return distinct tokens
+   * @throws IOException
+   */
+  static Set<String> getTokens(String string) throws IOException {
+    final Set<String> result = new HashSet<String>();
+    tokenize(string, new TokenCallback() {
+      
+      @Override
+      public void onToken(String token) {
+        result.add(token);
       }
-      analyzer.close();
-    }
+    });
     return result;
   }
     
   @Override
   protected TokenStreamComponents createComponents(String fieldName) {
     Tokenizer source = new ClassicTokenizer();
-    CharArraySet stopWords = CharArraySet.copy(characters);
-    stopWords.addAll(StopAnalyzer.ENGLISH_STOP_WORDS_SET);
     
     TokenFilter filter = new ClassicFilter(source);
     filter = new LowerCaseFilter(filter);
@@ -0,0 +1,64 @@
+/* ============================================================================
+*
+* FILE: HashingVectorizer.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.analytics.lucene;
+
+import java.nio.charset.StandardCharsets;
+
+import com.reactivetechnologies.platform.utils.Digestor;
+/**
+ * Vectorizes text by hashing each token to one of a fixed number of buckets, using a murmur hash. 
+ * There is no dictionary, so text can be vectorized in a single streaming pass with fixed memory, and 
+ * every node maps a given token to the same attribute without any cluster operation.
+ * <p>
+ * The hash is signed, so that colliding tokens tend to cancel out rather than add up. The value of a bucket
+ * is the signed count of its tokens.
+ */
+public class HashingVectorizer extends TextVectorizer {
+
+  public static final int DEFAULT_BUCKETS = 1 << 18;
+  /**
+   * 
+   * @param buckets no of text attributes
+   */
+  public HashingVectorizer(int buckets) {
+    super(buckets, false);
+  }
+
+  @Override
+  protected void onToken(String token, boolean learn, Terms terms) {
+    byte[] b = token.getBytes(StandardCharsets.UTF_8);
+    long hash = Digestor.murmur64(b, 0, b.length);
+    int bucket = (int) ((hash & Long.MAX_VALUE) % capacity);
+    if(hash < 0)
+      terms.decrement(bucket);
+    else
+      terms.increment(bucket);
+  }
+
+}
@@ -0,0 +1,252 @@
+/* ============================================================================
+*
+* FILE: TextVectorizer.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.analytics.lucene;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SparseInstance;
+/**
+ * Converts a text attribute into a fixed number of numeric attributes, streaming the tokens from
+ * {@linkplain EnglishTextAnalyzer}. The vectors always have the full capacity of text attributes, so
+ * the attribute space does not change between batches. Subclasses map each token to an attribute.
+ */
+public abstract class TextVectorizer {
+
+  protected final int capacity;
+  private final boolean binary;
+  /**
+   * Last raw header vectorized, and the vectorized header for it.
+   */
+  private volatile Instances[] lastHeaders;
+  /**
+   * The text attributes, shared by all vectorized headers. They are numeric, and so never modified.
+   */
+  private volatile FastVector textAttributes;
+  /**
+   * 
+   * @param capacity no of text attributes
+   * @param binary whether the value of a text attribute is the occurrence of its tokens, else the (signed) count
+   */
+  protected TextVectorizer(int capacity, boolean binary) {
+    this.capacity = capacity;
+    this.binary = binary;
+  }
+  
+  public int getCapacity() {
+    return capacity;
+  }
+  /**
+   * Map the token to a text attribute, and add it to the terms.
+   * @param token
+   * @param learn whether vectorizing for training
+   * @param terms
+   */
+  protected abstract void onToken(String token, boolean learn, Terms terms);
+  /**
+   * Invoked before each batch is vectorized.
+   */
+  protected void prepare() {
+  }
+  /**
+   * The text attribute indices of an instance, collected from the streamed tokens.
+   */
+  protected final class Terms implements EnglishTextAnalyzer.TokenCallback
+  {
+    private final boolean learn;
+    //attribute index shifted left, with the sign in the lowest bit
+    private int[] codes = new int[64];
+    private int size = 0;
+    
+    private Terms(boolean learn) {
+      this.learn = learn;
+    }
+    @Override
+    public void onToken(String token) {
+      TextVectorizer.this.onToken(token, learn, this);
+    }
+    private void add(int code)
+    {
+      if(size == codes.length)
+        codes = Arrays.copyOf(codes, size << 1);
+      codes[size++] = code;
+    }
+    /**
+     * Add an occurrence of the attribute.
+     * @param index
+     */
+    public void increment(int index)
+    {
+      add(index << 1);
+    }
+    /**
+     * Add a negative occurrence of the attribute.
+     * @param index
+     */
+    public void decrement(int index)
+    {
+      add((index << 1) | 1);
+    }
+    /**
+     * Sort the terms and merge them by attribute, into the arrays. Attributes whose counts cancel out are dropped.
+     * @param indices
+     * @param values
+     * @return no of attributes
+     */
+    private int merge(int[] indices, double[] values)
+    {
+      Arrays.sort(codes, 0, size);
+      int n = 0;
+      for(int i=0; i<size;)
+      {
+        int index = codes[i] >>> 1;
+        double value = 0;
+        for(; i<size && (codes[i] >>> 1) == index; i++)
+        {
+          value += (codes[i] & 1) == 0 ? 1 : -1;
+        }
+        if(value != 0)
+        {
+          indices[n] = index;
+          values[n++] = binary ? Math.signum(value) : value;
+        }
+      }
+      return n;
+    }
+    /**
+     * 
+     * @return no of distinct attributes, at most
+     */
+    private int size()
+    {
+      return size;
+    }
+    private void clear()
+    {
+      size = 0;
+    }
+  }
+  private FastVector textAttributes()
+  {
+    FastVector text = textAttributes;
+    if(text == null)
+    {
+      text = new FastVector(capacity);
+      for(int i=0; i<capacity; i++)
+      {
+        text.addElement(new Attribute("w"+i));
+      }
+      textAttributes = text;
+    }
+    return text;
+  }
+  /**
+   * The vectorized header for a raw header. The text attributes are followed by the non text 
+   * attributes of the raw header.
+   * @param raw
+   * @param textIdx
+   * @return
+   */
+  private Instances vectorizedHeader(Instances raw, int textIdx)
+  {
+    Instances[] last = lastHeaders;
+    if(last == null || !last[0].equalHeaders(raw))
+    {
+      FastVector tail = new FastVector(raw.numAttributes() - 1);
+      int classIdx = -1;
+      for(int j=0; j<raw.numAttributes(); j++)
+      {
+        if(j == textIdx)
+          continue;
+        if(j == raw.classIndex())
+          classIdx = capacity + tail.size();
+        tail.addElement(raw.attribute(j).copy());
+      }
+      FastVector attributes = (FastVector) textAttributes().copy();
+      attributes.appendElements(tail);
+      Instances header = new Instances(raw.relationName(), attributes, 0);
+      header.setClassIndex(classIdx);
+      last = new Instances[]{new Instances(raw, 0), header};
+      lastHeaders = last;
+    }
+    //string attribute values are added to the header, so those are recreated for each batch
+    return last[1].stringFreeStructure();
+  }
+  /**
+   * Converts the text attribute of each instance into text attributes. The other attributes
+   * are retained, following the text attributes.
+   * @param raw
+   * @param isLast whether the text is the last attribute, else first
+   * @param learn whether vectorizing for training. New words may be ignored otherwise, say for scoring.
+   * @return
+   * @throws IOException
+   */
+  public Instances vectorize(Instances raw, boolean isLast, boolean learn) throws IOException
+  {
+    prepare();
+    
+    final int textIdx = isLast ? raw.numAttributes() - 1 : 0;
+    Instances vectors = new Instances(vectorizedHeader(raw, textIdx), raw.numInstances());
+    final int others = raw.numAttributes() - 1;
+    final Terms terms = new Terms(learn);
+    
+    for(int i=0; i<raw.numInstances(); i++)
+    {
+      Instance text = raw.instance(i);
+      terms.clear();
+      if(!text.isMissing(textIdx))
+      {
+        EnglishTextAnalyzer.tokenize(text.stringValue(textIdx), terms);
+      }
+      int[] indices = new int[terms.size() + others];
+      double[] values = new double[indices.length];
+      int n = terms.merge(indices, values);
+      
+      int k = capacity;
+      for(int j=0; j<raw.numAttributes(); j++)
+      {
+        if(j == textIdx)
+          continue;
+        indices[n] = k;
+        if(raw.attribute(j).isString() && !text.isMissing(j))
+          values[n] = vectors.attribute(k).addStringValue(text.stringValue(j));
+        else
+          values[n] = text.value(j);
+        n++;
+        k++;
+      }
+      vectors.add(new SparseInstance(text.weight(), Arrays.copyOf(values, n), Arrays.copyOf(indices, n), vectors.numAttributes()));
+    }
+    return vectors;
+  }
+}
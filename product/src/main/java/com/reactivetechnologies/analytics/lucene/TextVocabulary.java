@@ -0,0 +1,188 @@
+/* ============================================================================
+*
+* FILE: TextVocabulary.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.analytics.lucene;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.reactivetechnologies.analytics.utils.ConfigUtil;
+import com.reactivetechnologies.platform.datagrid.core.HazelcastClusterServiceBean;
+
+/**
+ * A vocabulary of words shared across the cluster, to convert text into word occurrence vectors. 
+ * Each new word is assigned the next free attribute slot, till the capacity is reached. The vectors 
+ * always have the full capacity of word attributes, so the attribute space does not change as the
+ * vocabulary grows, and every node vectorizes a given word to the same attribute. The value of a
+ * word attribute is its occurrence.
+ * <p>
+ * Unlike {@linkplain TextInstanceFilter}, the dictionary is not refit on every batch. The local slots are 
+ * kept in sync by a listener on the shared vocabulary, so words are resolved without any cluster operation
+ * except when a new word is learnt.
+ */
+public class TextVocabulary extends TextVectorizer {
+
+  private static final Logger log = LoggerFactory.getLogger(TextVocabulary.class);
+  public static final int DEFAULT_CAPACITY = 10000;
+  private static final String SLOT_COUNTER = ConfigUtil.WEKA_VOCABULARY_MAP + ".SLOT";
+  
+  private final HazelcastClusterServiceBean hzService;
+  private final ConcurrentMap<String, Integer> slots = new ConcurrentHashMap<>();
+  private volatile boolean loaded = false, full = false;
+  /**
+   * Value of a word being assigned a slot by a member.
+   */
+  private static final int UNASSIGNED = -1;
+  /**
+   * 
+   * @param hzService
+   * @param capacity max no of words
+   */
+  public TextVocabulary(HazelcastClusterServiceBean hzService, int capacity) {
+    super(capacity, true);
+    this.hzService = hzService;
+  }
+  /**
+   * No of words known locally.
+   * @return
+   */
+  public int size() {
+    return slots.size();
+  }
+  
+  private Map<String, Integer> sharedSlots()
+  {
+    return hzService.getMap(ConfigUtil.WEKA_VOCABULARY_MAP);
+  }
+  private void onSlot(Serializable word, Integer slot)
+  {
+    if(slot != null && slot != UNASSIGNED)
+      slots.put(word.toString(), slot);
+  }
+  /**
+   * Fetch the words already present in the cluster, and listen for new words.
+   */
+  private synchronized void load()
+  {
+    if(!loaded)
+    {
+      hzService.addEntryListener(ConfigUtil.WEKA_VOCABULARY_MAP, new SlotListener());
+      for(Map.Entry<String, Integer> e : sharedSlots().entrySet())
+      {
+        onSlot(e.getKey(), e.getValue());
+      }
+      loaded = true;
+      log.info("Loaded vocabulary of "+slots.size()+" words");
+    }
+  }
+  /**
+   * Once the capacity is reached, no new words would be added. So the local slots can be
+   * completed with the cluster, and need not be looked up any further.
+   */
+  private synchronized void onFull()
+  {
+    if(!full)
+    {
+      for(Map.Entry<String, Integer> e : sharedSlots().entrySet())
+      {
+        onSlot(e.getKey(), e.getValue());
+      }
+      full = true;
+      log.info("Vocabulary is full at "+slots.size()+" words");
+    }
+  }
+  /**
+   * Listens for words added by any member.
+   */
+  private class SlotListener implements EntryAddedListener<Serializable, Integer>, EntryUpdatedListener<Serializable, Integer>
+  {
+    @Override
+    public void entryAdded(EntryEvent<Serializable, Integer> event) {
+      onSlot(event.getKey(), event.getValue());
+    }
+    @Override
+    public void entryUpdated(EntryEvent<Serializable, Integer> event) {
+      onSlot(event.getKey(), event.getValue());
+    }
+  }
+  /**
+   * Gets the attribute slot for a word. Only a word to be added is looked up in the cluster, since
+   * the local slots are kept in sync.
+   * <p>
+   * A new word is first inserted as unassigned, and a slot is taken only by the member whose insert wins. So
+   * racing members do not waste slots. A word being assigned by another member is not present for now.
+   * @param word
+   * @param add whether to add the word if not present
+   * @return slot, or -1 if not present
+   */
+  int slotOf(String word, boolean add)
+  {
+    Integer slot = slots.get(word);
+    if(slot != null)
+      return slot;
+    if(full || !add)
+      return -1;
+    
+    Integer existing = (Integer) hzService.putIfAbsent(word, UNASSIGNED, ConfigUtil.WEKA_VOCABULARY_MAP);
+    if(existing != null)
+    {
+      onSlot(word, existing);
+      return existing != UNASSIGNED ? existing : -1;
+    }
+    long next = hzService.getAndIncrementLong(SLOT_COUNTER);
+    if(next >= capacity)
+    {
+      hzService.remove(word, ConfigUtil.WEKA_VOCABULARY_MAP);
+      onFull();
+      return -1;
+    }
+    hzService.set(word, (int) next, ConfigUtil.WEKA_VOCABULARY_MAP);
+    slots.put(word, (int) next);
+    return (int) next;
+  }
+  @Override
+  protected void prepare() {
+    if(!loaded)
+      load();
+  }
+
+  @Override
+  protected void onToken(String token, boolean learn, Terms terms) {
+    int slot = slotOf(token, learn);
+    if(slot >= 0)
+      terms.increment(slot);
+  }
+}
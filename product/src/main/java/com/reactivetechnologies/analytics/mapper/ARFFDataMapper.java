@@ -28,22 +28,130 @@ SOFTWARE.
 */
 package com.reactivetechnologies.analytics.mapper;
 
-import java.io.StringReader;
 import java.text.ParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.StringUtils;
 
 import com.reactivetechnologies.analytics.core.Dataset;
 import com.reactivetechnologies.analytics.dto.ArffJsonRequest;
 import com.reactivetechnologies.analytics.dto.JsonRequest;
 
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.converters.ArffLoader.ArffReader;
-
+/**
+ * Maps an ARFF request to a dataset. The header is built directly from the request attributes, and cached 
+ * per relation. Only the data rows are parsed, streamed from the request texts.
+ */
 public class ARFFDataMapper implements DataMapper {
 
+  private static final String DEFAULT_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss";
+  private static final ConcurrentMap<String, Instances> headers = new ConcurrentHashMap<>();
+  
   @Override
   public String type() {
     return "ARFF";
   }
+  
+  private static Attribute toAttribute(com.reactivetechnologies.analytics.dto.Attribute a)
+  {
+    if(StringUtils.hasText(a.getType()))
+    {
+      if(a.getType().equalsIgnoreCase("string"))
+      {
+        FastVector nil = null;
+        return new Attribute(a.getName(), nil);
+      }
+      if(a.getType().equalsIgnoreCase("date"))
+      {
+        return new Attribute(a.getName(), dateFormatOf(a));
+      }
+      return new Attribute(a.getName());
+    }
+    FastVector fv = new FastVector(a.getSelector().length);
+    for(String s : a.getSelector())
+    {
+      fv.addElement(s);
+    }
+    return new Attribute(a.getName(), fv);
+  }
+  /**
+   * Whether the header has the same attributes as the request, by name, type, nominal values and date format.
+   * @param header
+   * @param arff
+   * @return
+   */
+  private static boolean isHeaderOf(Instances header, ArffJsonRequest arff)
+  {
+    com.reactivetechnologies.analytics.dto.Attribute[] attrs = arff.getAttributes();
+    if(header.numAttributes() != attrs.length)
+      return false;
+    for(int i=0; i<attrs.length; i++)
+    {
+      Attribute a = header.attribute(i);
+      if(!a.name().equals(attrs[i].getName()))
+        return false;
+      if(a.isNominal())
+      {
+        String[] selector = attrs[i].getSelector();
+        if(StringUtils.hasText(attrs[i].getType()) || selector == null || selector.length != a.numValues())
+          return false;
+        for(int j=0; j<selector.length; j++)
+        {
+          if(!selector[j].equals(a.value(j)))
+            return false;
+        }
+      }
+      else if(!StringUtils.hasText(attrs[i].getType()) || a.type() != typeOf(attrs[i]))
+        return false;
+      else if(a.isDate() && !a.getDateFormat().equals(dateFormatOf(attrs[i])))
+        return false;
+    }
+    return true;
+  }
+  /**
+   * The Weka attribute type of a typed request attribute.
+   * @param a
+   * @return
+   */
+  private static int typeOf(com.reactivetechnologies.analytics.dto.Attribute a)
+  {
+    if(a.getType().equalsIgnoreCase("string"))
+      return Attribute.STRING;
+    if(a.getType().equalsIgnoreCase("date"))
+      return Attribute.DATE;
+    return Attribute.NUMERIC;
+  }
+  private static String dateFormatOf(com.reactivetechnologies.analytics.dto.Attribute a)
+  {
+    return a.getSelector() != null && a.getSelector().length > 0 ? a.getSelector()[0] : DEFAULT_DATE_FORMAT;
+  }
+  /**
+   * The header for the request, with no string values.
+   * @param arff
+   * @return
+   */
+  private static Instances header(ArffJsonRequest arff)
+  {
+    String relation = StringUtils.hasText(arff.getRelation()) ? arff.getRelation() : "stream";
+    Instances header = headers.get(relation);
+    if(header == null || !isHeaderOf(header, arff))
+    {
+      FastVector attributes = new FastVector(arff.getAttributes().length);
+      for(com.reactivetechnologies.analytics.dto.Attribute a : arff.getAttributes())
+      {
+        attributes.addElement(toAttribute(a));
+      }
+      header = new Instances(relation, attributes, 0);
+      headers.put(relation, header);
+    }
+    //string attributes are shared by copies of a header, so they are recreated
+    return header.stringFreeStructure();
+  }
 
   @Override
   public Dataset mapStringToModel(JsonRequest request) throws ParseException {
@@ -54,8 +162,17 @@ public class ARFFDataMapper implements DataMapper {
     try 
     {
       ArffJsonRequest arff = (ArffJsonRequest) request;
-      ArffReader ar = new ArffReader(new StringReader(request.toString()));
-      Instances ins = ar.getData();
+      Instances header = header(arff);
+      Instances ins = new Instances(header, arff.getData() != null ? arff.getData().length : 0);
+      if(arff.getData() != null)
+      {
+        ArffReader ar = new ArffReader(new TextReader(arff.getData()), header, 0, 0);
+        Instance i;
+        while((i = ar.readInstance(ins)) != null)
+        {
+          ins.add(i);
+        }
+      }
       ins.setClassIndex(arff.getClassIndex() >= 0 ? arff.getClassIndex() : ins.numAttributes()-1);
       return new Dataset(ins);
     } catch (Exception e) {
@@ -28,28 +28,44 @@ SOFTWARE.
 */
 package com.reactivetechnologies.analytics.mapper;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.text.ParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.reactivetechnologies.analytics.core.Dataset;
 import com.reactivetechnologies.analytics.dto.JsonRequest;
-
+/**
+ * Maps CSV records to a dataset. The text of each data element is one or more records, the first record being the header.
+ * The records are parsed directly into instances by a {@linkplain CsvParser}, and the last column is the class.
+ * The inferred header is cached per column names, so that every request with the same columns is encoded alike.
+ */
 public class CSVDataMapper implements DataMapper {
 
   private static final Logger log = LoggerFactory.getLogger(CSVDataMapper.class);
+  private static final ConcurrentMap<String, CsvParser.Header> headers = new ConcurrentHashMap<>();
   @Override
   public String type() {
     return "CSV";
   }
-
   @Override
   public Dataset mapStringToModel(JsonRequest request) throws ParseException {
     log.debug("Got request:: "+request);
-    Dataset t = new Dataset();
+    if(request == null || request.getData() == null || request.getData().length == 0)
+      return null;
     
-    return t;
+    try(Reader reader = new TextReader(request.getData()))
+    {
+      return new Dataset(new CsvParser(request.getClassVars(), headers).parse(reader, "stream"));
+    } catch (IOException e) {
+      ParseException pe = new ParseException("Cannot read CSV records", -1);
+      pe.initCause(e);
+      throw pe;
+    }
   }
 
 }
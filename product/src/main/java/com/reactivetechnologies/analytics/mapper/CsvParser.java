@@ -0,0 +1,553 @@
+/* ============================================================================
+*
+* FILE: CsvParser.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.analytics.mapper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import weka.core.Attribute;
+import weka.core.FastVector;
+import weka.core.Instance;
+import weka.core.Instances;
+/**
+ * A streaming parser of CSV text into {@linkplain Instances}. The first record is the header of attribute names,
+ * and the last attribute is the class. Fields may be quoted, with embedded quotes doubled. An empty or '?' field 
+ * is missing.
+ * <p>
+ * The type of each column is inferred from its values. A column is numeric while all its values are numbers, else it is
+ * nominal, or string if it has more than {@value #MAX_NOMINALS} distinct values. The class column is never made string, 
+ * as Weka classifiers do not accept a string class. Numbers already parsed in a column which 
+ * turns nominal are kept as their shortest decimal form. The values are collected column wise as they are parsed, so no
+ * intermediate text is built.
+ * <p>
+ * The inferred types are cached as a {@linkplain Header}, per relation and column names. Later records with the same
+ * columns are mapped against the cached header, so that values are encoded alike across requests. A nominal column is
+ * extended by appending new values, which leaves the existing codes unchanged. A non numeric value in a numeric column is
+ * rejected.
+ */
+class CsvParser {
+
+  static final int MAX_NOMINALS = 1000;
+  private static final char QUOTE = '"', SEPARATOR = ',';
+  
+  /**
+   * Nominal values of a cached column. Values are only appended, so a code once assigned does not change.
+   */
+  private static final class Nominals
+  {
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    
+    Nominals(List<String> values) {
+      for(String s : values)
+      {
+        code(s);
+      }
+    }
+    synchronized int code(String s)
+    {
+      Integer c = dictionary.get(s);
+      if(c == null)
+      {
+        c = values.size();
+        dictionary.put(s, c);
+        values.add(s);
+      }
+      return c;
+    }
+    synchronized List<String> snapshot()
+    {
+      return new ArrayList<>(values);
+    }
+  }
+  /**
+   * The column types, and nominal values, for a set of columns.
+   */
+  static final class Header
+  {
+    private final int[] types;
+    private final Nominals[] nominals;
+    
+    private Header(Column[] columns, int classIdx) {
+      types = new int[columns.length];
+      nominals = new Nominals[columns.length];
+      for(int j=0; j<columns.length; j++)
+      {
+        Column c = columns[j];
+        if(c.numeric)
+          types[j] = Attribute.NUMERIC;
+        else if(c.isString(j == classIdx))
+          types[j] = Attribute.STRING;
+        else
+        {
+          types[j] = Attribute.NOMINAL;
+          nominals[j] = new Nominals(c.values);
+        }
+      }
+    }
+  }
+  /**
+   * Typed values of a column.
+   */
+  private static final class Column
+  {
+    final String name;
+    boolean numeric = true;
+    double[] numbers = new double[1024];
+    int[] codes;
+    final Map<String, Integer> dictionary = new HashMap<>();
+    List<String> values = new ArrayList<>();
+    int size = 0;
+    /**
+     * Type as per the cached header, if conformed.
+     */
+    int type = -1;
+    /**
+     * Line of the first non numeric value.
+     */
+    int nominalAt = 1;
+    
+    Column(String name) {
+      this.name = name;
+    }
+    /**
+     * A nominal column with the given values.
+     * @param name
+     * @param nominals
+     */
+    Column(String name, String[] nominals) {
+      this(name);
+      toNominal();
+      for(String s : nominals)
+      {
+        code(s);
+      }
+    }
+    private int code(String s)
+    {
+      Integer c = dictionary.get(s);
+      if(c == null)
+      {
+        c = values.size();
+        dictionary.put(s, c);
+        values.add(s);
+      }
+      return c;
+    }
+    private void toNominal()
+    {
+      numeric = false;
+      codes = new int[numbers.length];
+      for(int i=0; i<size; i++)
+      {
+        double d = numbers[i];
+        if(Double.isNaN(d))
+          codes[i] = -1;
+        else
+          codes[i] = code(d == Math.rint(d) && !Double.isInfinite(d) ? Long.toString((long) d) : Double.toString(d));
+      }
+      numbers = null;
+    }
+    private void grow()
+    {
+      if(numeric)
+      {
+        if(size == numbers.length)
+          numbers = Arrays.copyOf(numbers, size << 1);
+      }
+      else if(size == codes.length)
+        codes = Arrays.copyOf(codes, size << 1);
+    }
+    void addMissing()
+    {
+      grow();
+      if(numeric)
+        numbers[size++] = Instance.missingValue();
+      else
+        codes[size++] = -1;
+    }
+    void add(CharSequence cs)
+    {
+      if(numeric)
+      {
+        double d = parseDecimal(cs);
+        if(Double.isNaN(d))
+        {
+          try 
+          {
+            d = Double.parseDouble(cs.toString());
+          } catch (NumberFormatException e) {
+            toNominal();
+          }
+        }
+        if(numeric)
+        {
+          grow();
+          numbers[size++] = d;
+          return;
+        }
+      }
+      grow();
+      codes[size++] = code(cs.toString());
+    }
+    boolean isString(boolean isClass)
+    {
+      if(type >= 0)
+        return type == Attribute.STRING;
+      return !numeric && values.size() > MAX_NOMINALS && !isClass;
+    }
+    /**
+     * Conforms the column to its type in the cached header. The codes of a nominal column are translated to the
+     * cached codes, extending the cached values with any new ones.
+     * @param type
+     * @param nominals cached values, if nominal
+     * @throws ParseException if a numeric column has a non numeric value
+     */
+    void conform(int type, Nominals nominals) throws ParseException
+    {
+      this.type = type;
+      if(type == Attribute.NUMERIC)
+      {
+        if(!numeric)
+          throw new ParseException("Non numeric value in numeric column '"+name+"' at line "+nominalAt, nominalAt);
+        return;
+      }
+      if(numeric)
+        toNominal();
+      if(type == Attribute.NOMINAL)
+      {
+        int[] translated = new int[values.size()];
+        for(int i=0; i<translated.length; i++)
+        {
+          translated[i] = nominals.code(values.get(i));
+        }
+        for(int i=0; i<size; i++)
+        {
+          if(codes[i] >= 0)
+            codes[i] = translated[codes[i]];
+        }
+        values = nominals.snapshot();
+      }
+    }
+    /**
+     * 
+     * @param isClass whether the class column, which is kept nominal
+     * @return
+     */
+    Attribute toAttribute(boolean isClass)
+    {
+      if(numeric)
+        return new Attribute(name);
+      
+      if(isString(isClass))
+      {
+        FastVector nil = null;
+        Attribute a = new Attribute(name, nil);
+        for(String s : values)
+        {
+          a.addStringValue(s);
+        }
+        return a;
+      }
+      FastVector fv = new FastVector(values.size());
+      for(String s : values)
+      {
+        fv.addElement(s);
+      }
+      return new Attribute(name, fv);
+    }
+    double value(int row)
+    {
+      if(numeric)
+        return numbers[row];
+      return codes[row] < 0 ? Instance.missingValue() : codes[row];
+    }
+  }
+  
+  private static final double[] POWERS_OF_TEN = new double[23];
+  static{
+    POWERS_OF_TEN[0] = 1;
+    for(int i=1; i<POWERS_OF_TEN.length; i++)
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i-1] * 10;
+  }
+  /**
+   * Parse a plain decimal number of up to 15 digits, which is exact as the quotient of two exact doubles. 
+   * @param cs
+   * @return the number, or NaN if not a plain decimal number
+   */
+  static double parseDecimal(CharSequence cs)
+  {
+    int len = cs.length();
+    int i = 0;
+    boolean negative = false;
+    if(len > 0 && (cs.charAt(0) == '-' || cs.charAt(0) == '+'))
+    {
+      negative = cs.charAt(0) == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0, scale = -1;
+    for(; i<len; i++)
+    {
+      char c = cs.charAt(i);
+      if(c >= '0' && c <= '9')
+      {
+        if(++digits > 15)
+          return Double.NaN;
+        mantissa = mantissa * 10 + (c - '0');
+        if(scale >= 0)
+          scale++;
+      }
+      else if(c == '.' && scale < 0)
+        scale = 0;
+      else
+        return Double.NaN;
+    }
+    if(digits == 0)
+      return Double.NaN;
+    double d = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+    return negative ? -d : d;
+  }
+  
+  private final String[] classVars;
+  private final ConcurrentMap<String, Header> headers;
+  private final char[] buffer = new char[8192];
+  private int pos = 0, limit = 0;
+  private int line = 1;
+  private final StringBuilder field = new StringBuilder();
+  private boolean quoted;
+  /**
+   * A parser which infers the header afresh.
+   * @param classVars nominal values of the class, or empty to infer them
+   */
+  CsvParser(String[] classVars) {
+    this(classVars, new ConcurrentHashMap<String, Header>());
+  }
+  /**
+   * 
+   * @param classVars nominal values of the class, or empty to infer them
+   * @param headers cached headers, keyed by relation and column names
+   */
+  CsvParser(String[] classVars, ConcurrentMap<String, Header> headers) {
+    this.classVars = classVars;
+    this.headers = headers;
+  }
+  
+  private int read(Reader reader) throws IOException
+  {
+    if(pos == limit)
+    {
+      limit = reader.read(buffer, 0, buffer.length);
+      pos = 0;
+      if(limit <= 0)
+      {
+        limit = 0;
+        return -1;
+      }
+    }
+    return buffer[pos++];
+  }
+  /**
+   * Reads the next field into {@link #field}.
+   * @param reader
+   * @return the character that ended the field, '\n' for the end of a record, or -1 for the end of input
+   * @throws IOException
+   * @throws ParseException
+   */
+  private int readField(Reader reader) throws IOException, ParseException
+  {
+    field.setLength(0);
+    quoted = false;
+    int c = read(reader);
+    while(c == ' ' || c == '\t')
+      c = read(reader);
+    
+    if(c == QUOTE)
+    {
+      quoted = true;
+      while(true)
+      {
+        c = read(reader);
+        if(c == -1)
+          throw new ParseException("Unterminated quote at line "+line, line);
+        if(c == QUOTE)
+        {
+          c = read(reader);
+          if(c != QUOTE)
+            break;
+        }
+        if(c == '\n')
+          line++;
+        field.append((char) c);
+      }
+      while(c == ' ' || c == '\t')
+        c = read(reader);
+    }
+    else
+    {
+      while(c != SEPARATOR && c != '\n' && c != '\r' && c != -1)
+      {
+        field.append((char) c);
+        c = read(reader);
+      }
+      int end = field.length();
+      while(end > 0 && (field.charAt(end-1) == ' ' || field.charAt(end-1) == '\t'))
+        end--;
+      field.setLength(end);
+    }
+    if(c == '\r')
+    {
+      c = read(reader);
+      if(c != '\n' && c != -1)
+        pos--;
+      c = '\n';
+    }
+    if(c == '\n')
+      line++;
+    else if(c != SEPARATOR && c != -1)
+      throw new ParseException("Unexpected character after quoted field at line "+line, line);
+    return c;
+  }
+  private boolean isMissing()
+  {
+    return !quoted && (field.length() == 0 || (field.length() == 1 && field.charAt(0) == '?'));
+  }
+  /**
+   * Parse the CSV text into instances.
+   * @param reader
+   * @param relation
+   * @return
+   * @throws IOException
+   * @throws ParseException on malformed text, a class value not present in the class vars, or a non numeric value
+   * in a column cached as numeric
+   */
+  Instances parse(Reader reader, String relation) throws IOException, ParseException
+  {
+    List<String> names = new ArrayList<>();
+    int c;
+    do
+    {
+      c = readField(reader);
+      if(c == -1 && names.isEmpty() && field.length() == 0)
+        throw new ParseException("No header found", 0);
+      names.add(field.toString());
+    }
+    while(c == SEPARATOR);
+    
+    final int classIdx = names.size() - 1;
+    Column[] columns = new Column[names.size()];
+    for(int i=0; i<columns.length; i++)
+    {
+      columns[i] = i == classIdx && classVars != null && classVars.length > 0 ? new Column(names.get(i), classVars) : new Column(names.get(i));
+    }
+    final int classes = columns[classIdx].values.size();
+    
+    int rows = 0;
+    while(c != -1)
+    {
+      //line of the record, as a record may span lines within quotes
+      final int start = line;
+      int col = 0;
+      do
+      {
+        c = readField(reader);
+        if(col == 0 && c != SEPARATOR && field.length() == 0 && !quoted)
+        {
+          //blank line
+          col = -1;
+          break;
+        }
+        if(col == columns.length)
+          throw new ParseException("Expecting "+columns.length+" fields at line "+start, start);
+        if(isMissing())
+          columns[col].addMissing();
+        else if(columns[col].numeric)
+        {
+          columns[col].add(field);
+          if(!columns[col].numeric)
+            columns[col].nominalAt = start;
+        }
+        else
+        {
+          columns[col].add(field);
+          if(col == classIdx && classes > 0 && columns[col].values.size() > classes)
+            throw new ParseException("Unexpected class value '"+field+"' at line "+start, start);
+        }
+        col++;
+      }
+      while(c == SEPARATOR);
+      
+      if(col == -1)
+        continue;
+      if(col < columns.length)
+        throw new ParseException("Expecting "+columns.length+" fields at line "+start, start);
+      rows++;
+    }
+    
+    String key = relation + names;
+    Header header = headers.get(key);
+    if(header == null)
+    {
+      header = new Header(columns, classIdx);
+      Header cached = headers.putIfAbsent(key, header);
+      if(cached != null)
+        header = cached;
+    }
+    for(int j=0; j<columns.length; j++)
+    {
+      columns[j].conform(header.types[j], header.nominals[j]);
+    }
+    
+    FastVector attributes = new FastVector(columns.length);
+    for(int j=0; j<columns.length; j++)
+    {
+      attributes.addElement(columns[j].toAttribute(j == classIdx));
+    }
+    Instances instances = new Instances(relation, attributes, rows);
+    instances.setClassIndex(classIdx);
+    for(int r=0; r<rows; r++)
+    {
+      double[] vals = new double[columns.length];
+      for(int j=0; j<columns.length; j++)
+      {
+        vals[j] = columns[j].value(r);
+      }
+      instances.add(new Instance(1.0, vals));
+    }
+    return instances;
+  }
+}
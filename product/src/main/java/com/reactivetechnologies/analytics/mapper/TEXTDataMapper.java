@@ -70,7 +70,10 @@ public class TEXTDataMapper implements DataMapper {
       {
         Instance i = new Instance(2);
         i.setValue(attr0, s.getText());
-        i.setValue(attr1, s.getTclass());
+        if(s.getTclass() != null)
+          i.setValue(attr1, s.getTclass());
+        else
+          i.setMissing(attr1);
         ins.add(i);
         
       }
@@ -0,0 +1,93 @@
+/* ============================================================================
+*
+* FILE: TextReader.java
+*
+The MIT License (MIT)
+
+Copyright (c) 2016 Sutanu Dalui
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.analytics.mapper;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.reactivetechnologies.analytics.dto.Text;
+/**
+ * Reads the texts of request data as consecutive lines, without joining them.
+ */
+class TextReader extends Reader
+{
+  private final Text[] data;
+  private int next = 0, pos = 0;
+  private String current;
+  
+  TextReader(Text[] data) {
+    this.data = data;
+  }
+  private boolean nextText()
+  {
+    while(current == null || pos > current.length())
+    {
+      if(next == data.length)
+        return false;
+      current = data[next++].getText();
+      pos = 0;
+      if(current == null)
+        current = "";
+    }
+    return true;
+  }
+  /**
+   * Reads a single character, without the array allocation of the default implementation.
+   */
+  @Override
+  public int read() throws IOException {
+    if(!nextText())
+      return -1;
+    if(pos < current.length())
+      return current.charAt(pos++);
+    //line separator between texts
+    pos++;
+    return '\n';
+  }
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    if(!nextText())
+      return -1;
+    if(pos == current.length())
+    {
+      //line separator between texts
+      pos++;
+      cbuf[off] = '\n';
+      return 1;
+    }
+    int n = Math.min(len, current.length() - pos);
+    current.getChars(pos, pos + n, cbuf, off);
+    pos += n;
+    return n;
+  }
+  @Override
+  public void close() throws IOException {
+    //noop
+  }
+}
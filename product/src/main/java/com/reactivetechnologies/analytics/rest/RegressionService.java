@@ -29,9 +29,12 @@ SOFTWARE.
 package com.reactivetechnologies.analytics.rest;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Future;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
@@ -40,9 +43,15 @@ import javax.ws.rs.container.Suspended;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
 
+import com.reactivetechnologies.analytics.RegressionModelEngine;
+import com.reactivetechnologies.analytics.core.Dataset;
+import com.reactivetechnologies.analytics.core.dto.ClassifiedModel;
 import com.reactivetechnologies.analytics.core.dto.CombinerResult;
 import com.reactivetechnologies.analytics.core.handlers.ModelCombinerComponent;
+import com.reactivetechnologies.analytics.dto.JsonRequest;
+import com.reactivetechnologies.analytics.mapper.DataMapper;
 import com.reactivetechnologies.platform.SpringContext;
 import com.reactivetechnologies.platform.files.FileShareResponse;
 import com.reactivetechnologies.platform.files.FileSharingAgent;
@@ -71,6 +80,32 @@ public class RegressionService{
     return null;
     
   }
+  /**
+   * Classify all the records in the request. The class values of the records are ignored, and the 
+   * configured class values are used, as for training.
+   * @param request
+   * @return classifications, in the order of records
+   * @throws Exception on failure, for an error response
+   */
+  @Path("/reactive/classify")
+  @POST
+  public List<ClassifiedModel> classifyAll(JsonRequest request) throws Exception
+  {
+    try 
+    {
+      String classVars = SpringContext.getContext().getEnvironment().getProperty("weka.classifier.nominals");
+      if(StringUtils.hasText(classVars))
+        request.setClassVars(classVars.split(","));
+      Dataset unclassified = SpringContext.getBean(DataMapper.class).mapStringToModel(request);
+      if(unclassified == null)
+        return Collections.emptyList();
+      
+      return SpringContext.getBean(RegressionModelEngine.class).classifyAll(unclassified);
+    } catch (Exception e) {
+      log.error("Exception while classifying", e);
+      throw e;
+    }
+  }
   @Path("/reactive/runTask/{group}/set/{id}")
   @GET
   public String runTask(@PathParam("group") String group, @PathParam("id") String id, @QueryParam("qp") String param)
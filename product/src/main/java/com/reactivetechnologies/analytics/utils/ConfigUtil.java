@@ -17,6 +17,7 @@ public class ConfigUtil
   public static final String WEKA_MODEL_SNAPSHOT_SET = "WEKAMODELSNAP";
   public static final String WEKA_MODEL_PERSIST_MAP = "WEKAMODELENS";
   public static final String WEKA_COMMUNICATION_TOPIC = "WEKAINTERCOMM";
+  public static final String WEKA_VOCABULARY_MAP = "WEKAVOCAB";
   public static final String WEKA_IN_BEAN_NAME = "Weka-Inbound";
 	/**
 	 * Formats a xml string
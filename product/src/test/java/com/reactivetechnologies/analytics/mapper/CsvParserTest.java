@@ -0,0 +1,160 @@
+/* ============================================================================
+*
+* FILE: CsvParserTest.java
+*
+* MODULE DESCRIPTION:
+* See class description
+*
+* Copyright (C) 2015
+*
+* All rights reserved
+*
+* ============================================================================
+*/
+package com.reactivetechnologies.analytics.mapper;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.Test;
+
+import weka.core.Instances;
+
+public class CsvParserTest {
+
+  private static Instances parse(String csv, String... classVars) throws IOException, ParseException
+  {
+    return new CsvParser(classVars).parse(new StringReader(csv), "test");
+  }
+
+  @Test
+  public void quotedFieldsShouldKeepSeparatorsAndNewlines() throws Exception {
+    Instances ins = parse("text,label\n\"a, b\",x\n\"line1\nline2\",y\n");
+    assertThat(ins.numInstances(), is(2));
+    assertThat(ins.instance(0).stringValue(0), is("a, b"));
+    assertThat(ins.instance(1).stringValue(0), is("line1\nline2"));
+  }
+
+  @Test
+  public void doubledQuotesShouldBeUnescaped() throws Exception {
+    Instances ins = parse("text,label\n\"say \"\"hi\"\"\",x\n");
+    assertThat(ins.instance(0).stringValue(0), is("say \"hi\""));
+  }
+
+  @Test
+  public void crlfShouldEndRecords() throws Exception {
+    Instances ins = parse("a,label\r\n1,x\r\n2,y\r\n");
+    assertThat(ins.numInstances(), is(2));
+    assertTrue(ins.attribute(0).isNumeric());
+    assertThat(ins.instance(1).value(0), is(2.0));
+    assertThat(ins.instance(1).stringValue(1), is("y"));
+  }
+
+  @Test
+  public void blankLinesShouldBeSkipped() throws Exception {
+    Instances ins = parse("a,label\n\n1,x\n\r\n2,y\n\n");
+    assertThat(ins.numInstances(), is(2));
+  }
+
+  @Test
+  public void emptyOrQuestionMarkShouldBeMissing() throws Exception {
+    Instances ins = parse("a,b,label\n,?,x\n1,\"?\",y\n");
+    assertTrue(ins.instance(0).isMissing(0));
+    assertTrue(ins.instance(0).isMissing(1));
+    assertTrue(!ins.instance(1).isMissing(1));
+    assertThat(ins.instance(1).stringValue(1), is("?"));
+  }
+
+  @Test
+  public void numericColumnShouldTurnNominal() throws Exception {
+    Instances ins = parse("a,label\n1,x\n2.5,y\n,x\nfoo,y\n");
+    assertTrue(ins.attribute(0).isNominal());
+    assertThat(ins.instance(0).stringValue(0), is("1"));
+    assertThat(ins.instance(1).stringValue(0), is("2.5"));
+    assertTrue(ins.instance(2).isMissing(0));
+    assertThat(ins.instance(3).stringValue(0), is("foo"));
+  }
+
+  @Test
+  public void classColumnShouldStayNominal() throws Exception {
+    StringBuilder csv = new StringBuilder("a,label\n");
+    for (int i = 0; i <= CsvParser.MAX_NOMINALS; i++) {
+      csv.append(i).append(",c").append(i).append('\n');
+    }
+    Instances ins = parse(csv.toString());
+    assertTrue(ins.classAttribute().isNominal());
+    assertThat(ins.classAttribute().numValues(), is(CsvParser.MAX_NOMINALS + 1));
+  }
+
+  @Test
+  public void classVarsShouldBeEnforced() throws Exception {
+    Instances ins = parse("a,label\n1,y\n", "x", "y");
+    assertThat(ins.classAttribute().numValues(), is(2));
+    assertThat(ins.instance(0).classValue(), is(1.0));
+    try {
+      parse("a,label\n1,x\n2,z\n", "x", "y");
+      fail("Expected unknown class value to fail");
+    } catch (ParseException e) {
+      assertThat(e.getErrorOffset(), is(3));
+    }
+  }
+
+  @Test
+  public void errorOnLastRecordShouldReportItsLine() throws Exception {
+    try {
+      parse("a,b,label\n1,2,x\n3,y");
+      fail("Expected short record to fail");
+    } catch (ParseException e) {
+      assertThat(e.getErrorOffset(), is(3));
+    }
+    try {
+      parse("a,b,label\n1,2,x\n3,y\n");
+      fail("Expected short record to fail");
+    } catch (ParseException e) {
+      assertThat(e.getErrorOffset(), is(3));
+    }
+  }
+
+  @Test
+  public void cachedHeaderShouldEncodeBatchesAlike() throws Exception {
+    ConcurrentMap<String, CsvParser.Header> headers = new ConcurrentHashMap<>();
+    Instances first = new CsvParser(null, headers).parse(new StringReader("a,b,label\n1,red,x\n2,blue,y\n"), "test");
+    Instances second = new CsvParser(null, headers).parse(new StringReader("a,b,label\n3,blue,y\n4,red,x\n"), "test");
+    assertTrue(first.equalHeaders(second));
+    assertThat(second.instance(0).value(1), is(first.instance(1).value(1)));
+    assertThat(second.instance(1).classValue(), is(first.instance(0).classValue()));
+  }
+
+  @Test
+  public void cachedNominalShouldBeExtended() throws Exception {
+    ConcurrentMap<String, CsvParser.Header> headers = new ConcurrentHashMap<>();
+    Instances first = new CsvParser(null, headers).parse(new StringReader("a,b,label\n1,red,x\n"), "test");
+    Instances second = new CsvParser(null, headers).parse(new StringReader("a,b,label\n2,green,x\n3,red,x\n"), "test");
+    assertThat(first.attribute(1).numValues(), is(1));
+    assertThat(second.attribute(1).numValues(), is(2));
+    assertThat(second.attribute(1).value(1), is("green"));
+    assertThat(second.instance(1).value(1), is(first.instance(0).value(1)));
+  }
+
+  @Test
+  public void cachedNumericShouldRejectText() throws Exception {
+    ConcurrentMap<String, CsvParser.Header> headers = new ConcurrentHashMap<>();
+    new CsvParser(null, headers).parse(new StringReader("a,label\n1,x\n"), "test");
+    try {
+      new CsvParser(null, headers).parse(new StringReader("a,label\n2,x\nfoo,y\n"), "test");
+      fail("Expected text in a numeric column to fail");
+    } catch (ParseException e) {
+      assertThat(e.getErrorOffset(), is(3));
+    }
+    Instances ins = new CsvParser(null, headers).parse(new StringReader("a,label\n2,x\n"), "test");
+    assertTrue(ins.attribute(0).isNumeric());
+  }
+}